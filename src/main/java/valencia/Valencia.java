@@ -1,8 +1,23 @@
 package valencia;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
 import valencia.exception.ValenciaException;
 import valencia.parser.Parser;
+import valencia.storage.DatabaseStorageBackend;
+import valencia.storage.SnapshotFormat;
 import valencia.storage.Storage;
+import valencia.storage.StorageBackend;
+import valencia.storage.TaskChange;
+import valencia.task.Edit;
+import valencia.task.Event;
+import valencia.task.History;
 import valencia.task.Task;
 import valencia.task.TaskList;
 import valencia.task.Todo;
@@ -13,9 +28,26 @@ import valencia.ui.Ui;
  * Handles reading user commands, delegating parsing, and coordinating storage + UI updates.
  */
 public class Valencia {
+    /** Number of journal records kept before they are compacted into the data file. */
+    public static final int JOURNAL_COMPACT_THRESHOLD = 500;
+    /** Number of commands that can be undone. */
+    public static final int HISTORY_LIMIT = 500;
+    /** Number of tasks per page of "list"; a plain "list" of a longer list shows only the first page. */
+    public static final int LIST_PAGE_SIZE = 100;
+    /** Largest page size "list [page] [size]" accepts, which bounds the memory one reply takes. */
+    public static final int MAX_LIST_PAGE_SIZE = 1000;
+    /** Command-line option that keeps the tasks in an embedded database instead of the data file. */
+    public static final String DATABASE_OPTION = "--database";
+    /** Command-line option that writes the data file in the compact binary format, which loads faster. */
+    public static final String BINARY_OPTION = "--binary";
+    private static final String DATA_FILE_PATH = "data/valencia.txt";
+    private static final String DATABASE_PATH = "data/valencia";
+
     private final Ui ui;
-    private final Storage storage;
-    private final TaskList taskList;
+    private final StorageBackend storage;
+    private final CompletableFuture<TaskList> loading;
+    private TaskList taskList = null;
+    private final History history = new History(HISTORY_LIMIT);
     private String commandType = "Other";
     private boolean awaitingPickupLine = false;
 
@@ -25,18 +57,58 @@ public class Valencia {
      * @param filePath Path to the data file used for loading/saving tasks.
      */
     public Valencia(String filePath) {
-        assert filePath != null && !filePath.isBlank() : "filePath must be non-null and non-blank";
-        ui = new Ui();
-        storage = new Storage(filePath);
-        taskList = storage.load();
+        this(new Storage(filePath, JOURNAL_COMPACT_THRESHOLD));
+    }
+
+    /**
+     * Creates a new Valencia instance backed by an already configured storage backend.
+     * The tasks are loaded on a background thread, so this returns (and the welcome can be shown) at once
+     * however large the data file is; the first command waits for the load to finish.
+     *
+     * @param storage Backend used for loading/saving tasks.
+     */
+    public Valencia(StorageBackend storage) {
+        assert storage != null : "storage must be non-null";
+        this.ui = new Ui();
+        this.storage = storage;
+        this.loading = CompletableFuture.supplyAsync(storage::load);
 
         assert ui != null : "ui should be initialized";
         assert storage != null : "storage should be initialized";
-        assert taskList != null : "taskList should not be null after loading";
+    }
+
+    /**
+     * Waits for the tasks being loaded in the background, if they are not loaded yet.
+     */
+    private void awaitTasks() {
+        if (taskList == null) {
+            taskList = loading.join();
+            assert taskList != null : "taskList should not be null after loading";
+        }
     }
 
     public static void main(String[] args) {
-        new Valencia("data/valencia.txt").run();
+        new Valencia(createStorage(List.of(args))).run();
+    }
+
+    /**
+     * Creates the storage backend chosen by the command-line options, which the CLI and the GUI share.
+     * By default the tasks are kept in the journaled data file "data/valencia.txt"; with {@value #DATABASE_OPTION}
+     * they are kept in the embedded database "data/valencia.mv.db" instead. With {@value #BINARY_OPTION}, the data
+     * file's snapshots are written in the binary format; a file in either format is read, and converted by the
+     * next snapshot. Unknown options are ignored.
+     *
+     * @param options Command-line arguments.
+     * @return The backend, not yet loaded.
+     */
+    public static StorageBackend createStorage(List<String> options) {
+        assert options != null : "options should not be null";
+        if (options.contains(DATABASE_OPTION)) {
+            return new DatabaseStorageBackend(DATABASE_PATH);
+        }
+        Storage storage = new Storage(DATA_FILE_PATH, JOURNAL_COMPACT_THRESHOLD);
+        storage.setSnapshotFormat(options.contains(BINARY_OPTION) ? SnapshotFormat.BINARY : SnapshotFormat.TEXT);
+        return storage;
     }
 
     public String getCommandType() {
@@ -45,6 +117,8 @@ public class Valencia {
 
     /**
      * Runs the CLI command loop until the user exits.
+     * The prompt is shown while the tasks are still loading; problems found while loading are reported with
+     * the reply to the first command, which waits for the load.
      */
     public void run() {
         ui.showLines(
@@ -57,8 +131,11 @@ public class Valencia {
         while (true) {
             String input = ui.readCommand();
             assert input != null : "Ui.readCommand() should not return null";
-            String response = getResponse(input);
-            ui.showMessage(response);
+            try {
+                writeResponse(input, ui.getOutput());
+            } catch (IOException e) {
+                ui.showError("Could not print the reply: " + e.getMessage());
+            }
 
             if (input.trim().equalsIgnoreCase("bye")) {
                 return;
@@ -68,8 +145,95 @@ public class Valencia {
 
     /**
      * Processes a user command and returns Valencia's reply.
+     * The task list is first brought up to date with changes saved by other processes sharing the data file.
+     * Any storage errors since the last command are appended as warnings.
      */
     public String getResponse(String input) {
+        awaitTasks();
+        String response;
+        storage.beginUpdate(taskList);
+        try {
+            response = respond(input);
+        } finally {
+            storage.endUpdate();
+        }
+        String warnings = getStorageWarnings();
+        return warnings.isEmpty() ? response : response + "\n" + warnings;
+    }
+
+    /**
+     * Processes a user command and writes Valencia's reply, followed by a newline, to {@code out}.
+     * A plain "list" is written out a chunk of tasks at a time rather than built as one string, so it shows the
+     * whole list however long it is without needing memory for all of it; other commands reply as
+     * {@link #getResponse} does.
+     *
+     * @param input User command.
+     * @param out   Where to write the reply.
+     * @throws IOException If {@code out} fails.
+     */
+    public void writeResponse(String input, Appendable out) throws IOException {
+        assert input != null : "input should not be null";
+        if (!input.trim().equalsIgnoreCase("list") || awaitingPickupLine) {
+            out.append(getResponse(input)).append("\n");
+            return;
+        }
+
+        commandType = "List";
+        awaitTasks();
+        storage.beginUpdate(taskList);
+        try {
+            out.append("Here are the tasks in your list:\n");
+            taskList.writeList(out);
+        } finally {
+            storage.endUpdate();
+        }
+        String warnings = getStorageWarnings();
+        if (!warnings.isEmpty()) {
+            out.append(warnings).append("\n");
+        }
+    }
+
+    /**
+     * Applies changes that other processes saved to the data file since the last command,
+     * e.g. when the storage reports that the file changed.
+     *
+     * @return One line per changed task, or an empty string if nothing changed.
+     */
+    public String reloadExternalChanges() {
+        awaitTasks();
+        List<TaskChange> changes = storage.beginUpdate(taskList);
+        storage.endUpdate();
+        if (changes.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder sb = new StringBuilder("The task list was changed elsewhere:");
+        for (TaskChange change : changes) {
+            sb.append("\n").append(change);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns (and clears) storage problems reported since the last call, one "Warning:" line each,
+     * e.g. failed saves or corrupt records skipped while loading.
+     * Waits for the tasks being loaded in the background first, so problems found while loading are included.
+     *
+     * @return Warning lines, or an empty string if there is nothing to report.
+     */
+    public String getStorageWarnings() {
+        awaitTasks();
+        StringBuilder sb = new StringBuilder();
+        for (Optional<String> error = storage.pollError(); error.isPresent(); error = storage.pollError()) {
+            if (sb.length() > 0) {
+                sb.append("\n");
+            }
+            sb.append("Warning: ").append(error.get());
+        }
+        return sb.toString();
+    }
+
+    private String respond(String input) {
         assert input != null : "input passed into getResponse should not be null";
         assert taskList != null : "taskList should be initialized";
         assert storage != null : "storage should be initialized";
@@ -116,13 +280,29 @@ public class Valencia {
                 return handleFind(trimmed);
             case "list":
                 commandType = "List";
-                return "Here are the tasks in your list:\n" + taskList.formatList();
+                return handleList(trimmed);
             case "bye":
                 commandType = "Bye";
+                storage.close();
                 return "Bye. Hope to see you again soon!";
+            case "stats":
+                commandType = "Other";
+                return "Storage stats:\n" + storage.getSaveStats();
             case "remind":
                 commandType = "Remind";
                 return handleRemind(trimmed);
+            case "undo":
+                commandType = "Other";
+                return handleUndo();
+            case "redo":
+                commandType = "Other";
+                return handleRedo();
+            case "conflicts":
+                commandType = "Remind";
+                return "Overlapping events:\n" + taskList.formatConflicts(LIST_PAGE_SIZE);
+            case "free":
+                commandType = "Remind";
+                return handleFree(trimmed);
             case "hi":
             case "hello":
             case "hey":
@@ -147,17 +327,24 @@ public class Valencia {
 
     private String handleMarkUnmark(String input, boolean isMark) throws ValenciaException {
         String commandWord = isMark ? "mark" : "unmark";
-        int index = getValidatedIndex(input, commandWord);
-
-        if (isMark) {
-            taskList.markDone(index);
-            saveTasks();
-            return String.format("Nice! I've marked this task as done:\n%s", taskList.get(index));
+        List<Task> targets = getTargetTasks(input, commandWord);
+        List<Edit> edits = new ArrayList<>();
+        for (Task task : targets) {
+            if (task.isDone() != isMark) {
+                edits.add(new Edit(isMark ? Edit.Kind.MARK : Edit.Kind.UNMARK, task));
+            }
         }
+        perform(edits);
 
-        taskList.unmarkDone(index);
-        saveTasks();
-        return String.format("OK, I've marked this task as not done yet:\n%s", taskList.get(index));
+        if (targets.size() == 1) {
+            return isMark
+                    ? String.format("Nice! I've marked this task as done:\n%s", targets.get(0))
+                    : String.format("OK, I've marked this task as not done yet:\n%s", targets.get(0));
+        }
+        String heading = isMark
+                ? String.format("Nice! I've marked these %d tasks as done:", targets.size())
+                : String.format("OK, I've marked these %d tasks as not done yet:", targets.size());
+        return appendLines(new StringBuilder(heading), targets).toString();
     }
 
     private String handleTodo(String input) throws ValenciaException {
@@ -172,23 +359,124 @@ public class Valencia {
     }
 
     private String handleEvent(String input) throws ValenciaException {
-        Task eventTask = Parser.parseEvent(input);
-        return addTask(eventTask);
+        Event eventTask = Parser.parseEvent(input);
+        List<Event> conflicts = taskList.findConflicts(eventTask);
+        String reply = addTask(eventTask);
+        if (conflicts.isEmpty()) {
+            return reply;
+        }
+
+        StringBuilder sb = new StringBuilder(reply).append("\nHeads up! It overlaps with:");
+        for (Event other : conflicts) {
+            sb.append("\n#").append(other.getId()).append(' ').append(other);
+        }
+        return sb.toString();
     }
 
     private String addTask(Task task) {
-        taskList.add(task);
-        saveTasks();
-        return String.format("Got it. I've added this task:\n%s\nNow you have %d tasks in the list.",
-                task, taskList.size());
+        perform(List.of(new Edit(Edit.Kind.ADD, task)));
+        return String.format("Got it. I've added this task (#%d):\n%s\nNow you have %d tasks in the list.",
+                task.getId(), task, taskList.size());
     }
 
     private String handleDelete(String input) throws ValenciaException {
-        int index = getValidatedIndex(input, "delete");
-        Task removedTask = taskList.remove(index);
-        saveTasks();
-        return String.format("Noted. I've removed this task:\n%s\nNow you have %d tasks in the list.",
-                removedTask, taskList.size());
+        List<Task> targets = getTargetTasks(input, "delete");
+        List<Edit> edits = new ArrayList<>(targets.size());
+        for (Task task : targets) {
+            edits.add(new Edit(Edit.Kind.REMOVE, task));
+        }
+        perform(edits);
+
+        if (targets.size() == 1) {
+            return String.format("Noted. I've removed this task:\n%s\nNow you have %d tasks in the list.",
+                    targets.get(0), taskList.size());
+        }
+        StringBuilder sb = new StringBuilder(String.format("Noted. I've removed these %d tasks:", targets.size()));
+        return appendLines(sb, targets).append(String.format("\nNow you have %d tasks in the list.",
+                taskList.size())).toString();
+    }
+
+    /**
+     * Appends one line per item (task or edit), but no more than a page of them, so a reply to a bulk command
+     * stays short.
+     */
+    private static StringBuilder appendLines(StringBuilder sb, List<?> items) {
+        int shown = Math.min(items.size(), LIST_PAGE_SIZE);
+        for (int i = 0; i < shown; i++) {
+            sb.append("\n").append(items.get(i));
+        }
+        if (shown < items.size()) {
+            sb.append("\n... and ").append(items.size() - shown).append(" more");
+        }
+        return sb;
+    }
+
+    /**
+     * Applies the edits of one command to the task list as a single change, saves them with one write,
+     * and records them as one step that {@code undo} can reverse.
+     */
+    private void perform(List<Edit> edits) {
+        List<Edit> applied = taskList.applyAll(edits);
+        storage.saveEdits(applied, taskList);
+        history.record(applied);
+    }
+
+    private String handleUndo() throws ValenciaException {
+        List<Edit> edits = history.undo().orElseThrow(() -> new ValenciaException("There is nothing to undo!"));
+        return replay("Undone! Here is what changed:", edits);
+    }
+
+    private String handleRedo() throws ValenciaException {
+        List<Edit> edits = history.redo().orElseThrow(() -> new ValenciaException("There is nothing to redo!"));
+        return replay("Redone! Here is what changed:", edits);
+    }
+
+    /**
+     * Applies and saves the edits handed back by the history, listing the ones that took effect.
+     * Edits that no longer fit (e.g. removing a task another process already deleted) are skipped.
+     */
+    private String replay(String heading, List<Edit> edits) {
+        List<Edit> applied = taskList.applyAll(edits);
+        storage.saveEdits(applied, taskList);
+        if (applied.isEmpty()) {
+            return heading + "\n(nothing, the tasks were already changed elsewhere)";
+        }
+
+        return appendLines(new StringBuilder(heading), applied).toString();
+    }
+
+    /**
+     * Shows the whole list if it fits on one page, otherwise the requested page (the first by default)
+     * with a hint on how to see the next one.
+     */
+    private String handleList(String input) throws ValenciaException {
+        int page = Parser.parseListPage(input);
+        int pageSize = Parser.parseListPageSize(input, LIST_PAGE_SIZE);
+        if (pageSize > MAX_LIST_PAGE_SIZE) {
+            throw new ValenciaException("Page size can be at most " + MAX_LIST_PAGE_SIZE + ".");
+        }
+        int size = taskList.size();
+        if (page == 0 && size <= pageSize) {
+            return "Here are the tasks in your list:\n" + taskList.formatList();
+        }
+
+        int pages = Math.max(1, (size + pageSize - 1) / pageSize);
+        page = Math.max(page, 1);
+        if (page > pages) {
+            throw new ValenciaException("There " + (pages == 1 ? "is only 1 page" : "are only " + pages + " pages")
+                    + " of tasks!");
+        }
+        StringBuilder sb = new StringBuilder("Here are the tasks in your list (page ")
+                .append(page).append(" of ").append(pages).append("):\n")
+                .append(taskList.formatPage(page, pageSize));
+        if (page < pages) {
+            sb.append("\nType \"list ").append(page + 1);
+            if (pageSize != LIST_PAGE_SIZE) {
+                sb.append(' ').append(pageSize);
+            }
+            sb.append("\" to see the next page.");
+        }
+        return sb.toString();
     }
 
     private String handleFind(String input) throws ValenciaException {
@@ -196,14 +484,33 @@ public class Valencia {
         return "Here are the matching tasks in your list:\n" + taskList.formatMatches(keyword);
     }
 
-    private int getValidatedIndex(String input, String commandWord) throws ValenciaException {
-        int taskNum = Parser.parseTaskNumber(input, commandWord);
-        Parser.validateTaskNumber(taskNum, taskList);
-        return taskNum - 1;
-    }
-
-    private void saveTasks() {
-        storage.save(taskList);
+    /**
+     * Finds the tasks a command refers to: one by ID ("delete #12"), every finished task ("delete done"),
+     * or list numbers and ranges ("delete 3", "delete 3-40", "mark 1,5,9").
+     *
+     * @return The tasks, in list order (never empty).
+     */
+    private List<Task> getTargetTasks(String input, String commandWord) throws ValenciaException {
+        if (Parser.isTaskId(input, commandWord)) {
+            Task task = taskList.getById(Parser.parseTaskId(input, commandWord));
+            if (task == null) {
+                throw new ValenciaException("There is no task with that ID :P");
+            }
+            return List.of(task);
+        }
+        if (Parser.isDoneTasks(input, commandWord)) {
+            List<Task> done = taskList.read(tasks -> tasks.stream().filter(Task::isDone).collect(Collectors.toList()));
+            if (done.isEmpty()) {
+                throw new ValenciaException("There are no tasks marked as done!");
+            }
+            return done;
+        }
+        List<Integer> taskNums = Parser.parseTaskNumbers(input, commandWord, taskList.size());
+        List<Integer> indexes = new ArrayList<>(taskNums.size());
+        for (int taskNum : taskNums) {
+            indexes.add(taskNum - 1);
+        }
+        return taskList.getAt(indexes);
     }
 
     private String handleRemind(String input) throws ValenciaException {
@@ -211,6 +518,11 @@ public class Valencia {
         return "Upcoming tasks (next " + days + " days):\n" + taskList.formatUpcoming(days);
     }
 
+    private String handleFree(String input) throws ValenciaException {
+        LocalDate date = Parser.parseFreeDate(input);
+        return "Free time on " + date + ":\n" + taskList.formatFreeSlots(date);
+    }
+
     private String handleGreeting(String greetingWord) {
         switch (greetingWord) {
         case "hi":
@@ -8,13 +8,36 @@ import javafx.scene.Scene;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 import valencia.Valencia;
+import valencia.storage.Durability;
+import valencia.storage.Storage;
+import valencia.storage.StorageBackend;
 
 /**
  * A GUI for Valencia using FXML.
  */
 public class Main extends Application {
+    private static final long WRITE_BEHIND_DELAY_MILLIS = 200;
 
-    private Valencia valencia = new Valencia("data/valencia.txt");
+    private Storage fileStorage = null;
+    private Valencia valencia;
+
+    /**
+     * Creates the storage chosen by the command-line options (see {@link Valencia#createStorage}).
+     * Saves to the data file are handed to a background writer, and commands run on their own thread
+     * (see {@link MainWindow}), so neither disk IO nor waiting for the file lock blocks the JavaFX thread.
+     * Since the writer batches commits, fsync-ing every commit stays cheap.
+     */
+    @Override
+    public void init() {
+        StorageBackend storage = Valencia.createStorage(getParameters().getRaw());
+        if (storage instanceof Storage) {
+            // the database backend commits each change itself and is not shared with other processes
+            fileStorage = (Storage) storage;
+            fileStorage.setDurability(Durability.EVERY_COMMIT);
+            fileStorage.enableWriteBehind(WRITE_BEHIND_DELAY_MILLIS);
+        }
+        valencia = new Valencia(storage);
+    }
 
     @Override
     public void start(Stage stage) {
@@ -27,7 +50,12 @@ public class Main extends Application {
             stage.setMinWidth(417);
             stage.setMaxWidth(417);
             stage.setTitle("Valencia");
-            fxmlLoader.<MainWindow>getController().setValencia(valencia); // inject the Duke instance
+            MainWindow mainWindow = fxmlLoader.<MainWindow>getController();
+            mainWindow.setValencia(valencia); // inject the Duke instance
+            if (fileStorage != null) {
+                // edits from the CLI or another window show up without waiting for the next command
+                fileStorage.watch(mainWindow::showExternalChanges);
+            }
             stage.show();
         } catch (IOException e) {
             e.printStackTrace();
@@ -1,5 +1,8 @@
 package valencia.gui;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.ScrollPane;
@@ -27,6 +30,13 @@ public class MainWindow extends AnchorPane {
     private Button sendButton;
 
     private Valencia valencia;
+    /** Runs Valencia's commands one at a time off the JavaFX thread, since they may wait for the data file. */
+    private final ExecutorService commands = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "valencia-commands");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean isClosed = false;
 
     private final Image userImage = new Image(
             getClass().getResourceAsStream("/images/speed.png")
@@ -46,6 +56,10 @@ public class MainWindow extends AnchorPane {
         showWelcome();
     }
 
+    /**
+     * Shows the welcome at once, and any storage warnings once the tasks have loaded (on the command thread,
+     * before the commands sent in the meantime are answered).
+     */
     private void showWelcome() {
         dialogContainer.getChildren().add(
                 DialogBox.getValenciaDialog(
@@ -54,35 +68,74 @@ public class MainWindow extends AnchorPane {
                         "Other"
                 )
         );
+        commands.execute(() -> {
+            String warnings = valencia.getStorageWarnings();
+            if (warnings.isEmpty()) {
+                return;
+            }
+            Platform.runLater(() -> dialogContainer.getChildren().add(
+                    DialogBox.getValenciaDialog(warnings, valenciaImage, "Other")
+            ));
+        });
+    }
+
+    /**
+     * Applies changes saved to the data file by another process and lists the changed tasks, if any.
+     * May be called from any thread; the changes are applied on the command thread, after the commands
+     * already sent.
+     */
+    public void showExternalChanges() {
+        commands.execute(() -> {
+            if (isClosed) {
+                return; // already said bye
+            }
+            String changes = valencia.reloadExternalChanges();
+            if (changes.isEmpty()) {
+                return;
+            }
+            Platform.runLater(() -> dialogContainer.getChildren().add(
+                    DialogBox.getValenciaDialog(changes, valenciaImage, "Other")
+            ));
+        });
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing Valencia's reply,
-     * and then appends them to the dialog container.
-     * Clears the user input after processing.
+     * Echoes the user input in a dialog box and clears it, then has Valencia process it on the command
+     * thread and appends the reply once it is ready.
      */
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        String response = valencia.getResponse(input);
-        String commandType = valencia.getCommandType();
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getValenciaDialog(response, valenciaImage, commandType)
-        );
+        dialogContainer.getChildren().add(DialogBox.getUserDialog(input, userImage));
         userInput.clear();
 
-        if (input.equalsIgnoreCase("bye")) {
+        boolean isBye = input.equalsIgnoreCase("bye");
+        if (isBye) {
+            isClosed = true;
             userInput.setDisable(true);
             sendButton.setDisable(true);
+        }
+        commands.execute(() -> {
+            String response = valencia.getResponse(input);
+            String commandType = valencia.getCommandType();
+            Platform.runLater(() -> showResponse(response, commandType, isBye));
+        });
+    }
 
-            PauseTransition delay = new PauseTransition(Duration.seconds(0.6));
-            delay.setOnFinished(e -> {
-                Stage stage = (Stage) dialogContainer.getScene().getWindow();
-                stage.close();
-                Platform.exit();
-            });
-            delay.play();
+    private void showResponse(String response, String commandType, boolean isBye) {
+        dialogContainer.getChildren().add(
+                DialogBox.getValenciaDialog(response, valenciaImage, commandType)
+        );
+        if (!isBye) {
+            return;
         }
+
+        PauseTransition delay = new PauseTransition(Duration.seconds(0.6));
+        delay.setOnFinished(e -> {
+            Stage stage = (Stage) dialogContainer.getScene().getWindow();
+            stage.close();
+            Platform.exit();
+        });
+        delay.play();
     }
 }
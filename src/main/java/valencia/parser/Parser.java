@@ -2,6 +2,9 @@ package valencia.parser;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
 
 import valencia.exception.ValenciaException;
 import valencia.task.Deadline;
@@ -37,6 +40,99 @@ public class Parser {
         }
     }
 
+    /**
+     * Extracts the task numbers from commands like "delete 3-40", "mark 1,5,9" or "unmark 2, 4-6".
+     * A single number (e.g. "delete 3") gives a list of one.
+     *
+     * @param input       Full user input.
+     * @param commandWord The command word (e.g. "delete", "mark").
+     * @param taskCount   Number of tasks in the list; every number must be within it.
+     * @return Distinct task numbers (1-based), in increasing order.
+     * @throws ValenciaException If a number is missing, not a number or out of range, or a range is backwards.
+     */
+    public static List<Integer> parseTaskNumbers(String input, String commandWord, int taskCount) {
+        assert input != null : "input should not be null";
+        assert input.length() >= commandWord.length() : "input should be at least as long as commandWord";
+
+        TreeSet<Integer> numbers = new TreeSet<>();
+        for (String part : input.substring(commandWord.length()).split(",", -1)) {
+            int dash = part.indexOf('-');
+            int from = parsePositive(dash < 0 ? part : part.substring(0, dash));
+            int to = dash < 0 ? from : parsePositive(part.substring(dash + 1));
+            if (from > to) {
+                throw new ValenciaException("Ranges go from the smaller number to the larger one, like 3-40!");
+            }
+            if (to > taskCount) {
+                throw new ValenciaException("That task number does not exist :P");
+            }
+            for (int n = from; n <= to; n++) {
+                numbers.add(n);
+            }
+        }
+        return new ArrayList<>(numbers);
+    }
+
+    private static int parsePositive(String text) {
+        try {
+            int n = Integer.parseInt(text.trim());
+            if (n <= 0) {
+                throw new ValenciaException("Task numbers start from 1!");
+            }
+            return n;
+        } catch (NumberFormatException e) {
+            throw new ValenciaException("Sorry! I need a task number!");
+        }
+    }
+
+    /**
+     * Returns whether a command like "delete done" refers to every task that is marked as done.
+     *
+     * @param input       Full user input.
+     * @param commandWord The command word (e.g. "delete", "mark").
+     * @return True if the argument is "done".
+     */
+    public static boolean isDoneTasks(String input, String commandWord) {
+        assert input != null : "input should not be null";
+        assert input.length() >= commandWord.length() : "input should be at least as long as commandWord";
+        return input.substring(commandWord.length()).trim().equalsIgnoreCase("done");
+    }
+
+    /**
+     * Returns whether a command like "delete #12" names its task by ID rather than by list number.
+     *
+     * @param input       Full user input.
+     * @param commandWord The command word (e.g. "delete", "mark").
+     * @return True if the argument starts with '#'.
+     */
+    public static boolean isTaskId(String input, String commandWord) {
+        assert input != null : "input should not be null";
+        assert input.length() >= commandWord.length() : "input should be at least as long as commandWord";
+        return input.substring(commandWord.length()).trim().startsWith("#");
+    }
+
+    /**
+     * Extracts the task ID from commands like "delete #12" or "mark #7".
+     *
+     * @param input       Full user input.
+     * @param commandWord The command word (e.g. "delete", "mark").
+     * @return Parsed task ID (positive).
+     * @throws ValenciaException If the ID is missing or not a positive number.
+     */
+    public static int parseTaskId(String input, String commandWord) {
+        assert isTaskId(input, commandWord) : "input should name a task by ID";
+
+        String rest = input.substring(commandWord.length()).trim().substring(1).trim();
+        try {
+            int id = Integer.parseInt(rest);
+            if (id <= 0) {
+                throw new ValenciaException("Task IDs are positive numbers, like #12!");
+            }
+            return id;
+        } catch (NumberFormatException e) {
+            throw new ValenciaException("Sorry! I need a task ID after the #!");
+        }
+    }
+
     /**
      * Validates that the given task number is within the valid range of the list.
      *
@@ -160,6 +256,50 @@ public class Parser {
         return keyword;
     }
 
+    /**
+     * Parses the page number for the list command.
+     * Usage: "list" (no page, 0 is returned), "list 2" or "list 2 50".
+     *
+     * @param input Full user input.
+     * @return Page number (1-based), or 0 if no page was given.
+     * @throws ValenciaException If the page is not a positive integer or there are too many arguments.
+     */
+    public static int parseListPage(String input) throws ValenciaException {
+        return parseListArgument(input, 1, 0, "Page");
+    }
+
+    /**
+     * Parses the page size for the list command (e.g. 50 in "list 2 50").
+     *
+     * @param input       Full user input.
+     * @param defaultSize Page size to use when none is given.
+     * @return Number of tasks per page.
+     * @throws ValenciaException If the size is not a positive integer or there are too many arguments.
+     */
+    public static int parseListPageSize(String input, int defaultSize) throws ValenciaException {
+        return parseListArgument(input, 2, defaultSize, "Page size");
+    }
+
+    private static int parseListArgument(String input, int position, int defaultValue, String name) {
+        assert input != null : "input should not be null";
+        String[] parts = input.trim().split("\\s+");
+        if (parts.length > 3) {
+            throw new ValenciaException("Usage: list [page] [size]");
+        }
+        if (parts.length <= position) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(parts[position]);
+            if (value <= 0) {
+                throw new ValenciaException(name + " must be a positive integer.");
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new ValenciaException(name + " must be a positive integer.");
+        }
+    }
+
     /**
      * Parses number of days for remind command.
      * Usage: "remind" (defaults to 7) or "remind 3".
@@ -190,5 +330,24 @@ public class Parser {
 
         throw new ValenciaException("Usage: remind [days]");
     }
-}
 
+    /**
+     * Parses the date for the free command (e.g. "free 2026-02-03").
+     *
+     * @param input Full user input.
+     * @return Day to list free slots for.
+     * @throws ValenciaException If the date is missing or not in yyyy-MM-dd form.
+     */
+    public static LocalDate parseFreeDate(String input) throws ValenciaException {
+        assert input != null : "input should not be null";
+        String[] parts = input.trim().split("\\s+");
+        if (parts.length != 2) {
+            throw new ValenciaException("Usage: free yyyy-MM-dd");
+        }
+        try {
+            return LocalDate.parse(parts[1]);
+        } catch (DateTimeParseException e) {
+            throw new ValenciaException("Wrong format! Date must be yyyy-MM-dd!");
+        }
+    }
+}
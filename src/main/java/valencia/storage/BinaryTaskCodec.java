@@ -0,0 +1,338 @@
+package valencia.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.zip.CRC32C;
+
+import valencia.task.DateParser;
+import valencia.task.Deadline;
+import valencia.task.Event;
+import valencia.task.Task;
+import valencia.task.Todo;
+
+/**
+ * Reads and writes the compact binary snapshot format.
+ *
+ * <p>Layout (all numbers big-endian):
+ * <pre>
+ * header : magic 0x89 'V' 'L' 'C' | version (1 byte) | task count (int)
+ * record : byte length (int) | task | CRC32C of the task bytes (int)
+ * task   : id (int) | type 'T'/'D'/'E' (1 byte) | done (1 byte) | description (string)
+ *          D adds the due date as an epoch day (long)
+ *          E adds from and to, each as a time (see below)
+ * string : byte length (int) | UTF-8 bytes
+ * time   : kind (1 byte) then
+ *          TIME_TEXT      string   (anything that is not one of the forms below)
+ *          TIME_DATE      long     epoch day, for text like "2026-02-03"
+ *          TIME_DATE_TIME long     epoch second (UTC), for text like "2026-02-03 1400"
+ * </pre>
+ * Event times are only stored as numbers when formatting them back yields exactly the original text,
+ * so text and binary snapshots always describe the same tasks.
+ *
+ * <p>Version 1 files (records without the length and checksum framing) and version 2 files (tasks without
+ * an id) are still read. In framed files a record whose checksum does not match is skipped and reported
+ * as corrupt, and reading continues with the next record.
+ */
+class BinaryTaskCodec {
+    static final byte VERSION = 3;
+    private static final byte VERSION_UNFRAMED = 1;
+    private static final byte VERSION_WITHOUT_IDS = 2;
+    private static final byte[] MAGIC = {(byte) 0x89, 'V', 'L', 'C'};
+    private static final byte TIME_TEXT = 0;
+    private static final byte TIME_DATE = 1;
+    private static final byte TIME_DATE_TIME = 2;
+    private static final int HEADER_LENGTH = MAGIC.length + 1 + Integer.BYTES;
+    private static final int DATE_LENGTH = 10;
+    private static final int DATE_TIME_LENGTH = 15;
+
+    private BinaryTaskCodec() {
+    }
+
+    /**
+     * Returns true if the file starts with the binary snapshot magic bytes.
+     *
+     * @param path File to check (must exist).
+     * @throws IOException If the file cannot be read.
+     */
+    static boolean isBinary(Path path) throws IOException {
+        byte[] head = new byte[MAGIC.length];
+        try (InputStream in = Files.newInputStream(path)) {
+            if (in.readNBytes(head, 0, head.length) < head.length) {
+                return false;
+            }
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes a whole snapshot.
+     *
+     * @param tasks Tasks in list order.
+     * @return Snapshot bytes, header included.
+     */
+    static byte[] encode(Collection<Task> tasks) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + tasks.size() * 40);
+        RecordBuffer record = new RecordBuffer();
+        DataOutputStream recordOut = new DataOutputStream(record);
+        CRC32C crc = new CRC32C();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(tasks.size());
+            for (Task t : tasks) {
+                record.reset();
+                writeTask(t, recordOut);
+                crc.reset();
+                crc.update(record.buffer(), 0, record.size());
+                out.writeInt(record.size());
+                out.write(record.buffer(), 0, record.size());
+                out.writeInt((int) crc.getValue());
+            }
+        } catch (IOException e) {
+            throw new AssertionError("writing to a byte array should never fail", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeTask(Task t, DataOutputStream out) throws IOException {
+        assert t != null : "task to encode should not be null";
+
+        out.writeInt(t.getId());
+        char type = t.getTypeCode();
+        out.writeByte(type);
+        out.writeByte(t.isDone() ? 1 : 0);
+        writeString(t.getDescription(), out);
+
+        switch (type) {
+        case 'D':
+            out.writeLong(((Deadline) t).getBy().toEpochDay());
+            break;
+        case 'E':
+            Event e = (Event) t;
+            writeTime(e.getFrom(), out);
+            writeTime(e.getTo(), out);
+            break;
+        default:
+            break;
+        }
+    }
+
+    private static void writeString(String s, DataOutputStream out) throws IOException {
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static void writeTime(String text, DataOutputStream out) throws IOException {
+        if (text.length() == DATE_LENGTH) {
+            LocalDate date = DateParser.parseDate(text, 0, DATE_LENGTH);
+            if (date != null && formatDate(date).equals(text)) {
+                out.writeByte(TIME_DATE);
+                out.writeLong(date.toEpochDay());
+                return;
+            }
+        } else if (text.length() == DATE_TIME_LENGTH) {
+            LocalDateTime dateTime = DateParser.parseDateTime(text, 0, DATE_TIME_LENGTH);
+            if (dateTime != null && formatDateTime(dateTime).equals(text)) {
+                out.writeByte(TIME_DATE_TIME);
+                out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+                return;
+            }
+        }
+        out.writeByte(TIME_TEXT);
+        writeString(text, out);
+    }
+
+    private static String formatDate(LocalDate date) {
+        StringBuilder sb = new StringBuilder(DATE_LENGTH);
+        TaskCodec.appendDate(date, sb);
+        return sb.toString();
+    }
+
+    private static String formatDateTime(LocalDateTime dateTime) {
+        StringBuilder sb = new StringBuilder(DATE_TIME_LENGTH);
+        TaskCodec.appendDate(dateTime.toLocalDate(), sb);
+        int time = dateTime.getHour() * 100 + dateTime.getMinute();
+        sb.append(' ');
+        for (int div = 1000; div > 0; div /= 10) {
+            sb.append((char) ('0' + time / div % 10));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads a binary snapshot by memory-mapping it. Corrupt records are skipped; if the framing itself is
+     * damaged, reading stops there, keeping every task before it.
+     *
+     * @param path Snapshot file (must start with the magic bytes).
+     * @return Tasks in list order, plus a description of each corrupt record.
+     * @throws IOException If the file cannot be read or has an unsupported version.
+     */
+    static LoadResult load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            LoadResult result = new LoadResult();
+            if (channel.size() < HEADER_LENGTH) {
+                return result;
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            in.position(MAGIC.length);
+            byte version = in.get();
+            if (version != VERSION && version != VERSION_WITHOUT_IDS && version != VERSION_UNFRAMED) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+
+            int count = in.getInt();
+            byte[] scratch = new byte[256];
+            CRC32C crc = new CRC32C();
+            for (int i = 0; i < count && in.hasRemaining(); i++) {
+                int recordStart = in.position();
+                try {
+                    Task t = version == VERSION_UNFRAMED
+                            ? readTask(in, scratch, false)
+                            : readFramedTask(in, crc, scratch, version == VERSION);
+                    if (t != null) {
+                        result.tasks.add(t);
+                        continue;
+                    }
+                    if (version == VERSION_UNFRAMED) {
+                        // without framing there is no way to find where the next record starts
+                        result.corrupt.add(describe(in, recordStart, in.limit()));
+                        break;
+                    }
+                    result.corrupt.add(describe(in, recordStart, in.position()));
+                } catch (BufferUnderflowException | IllegalArgumentException | DateTimeException e) {
+                    // damaged framing: the rest of the file cannot be trusted
+                    result.corrupt.add(describe(in, recordStart, in.limit()));
+                    break;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Reads one length-prefixed, checksummed record. The buffer is left at the start of the next record
+     * even if this one is corrupt.
+     *
+     * @return The task, or null if the checksum does not match or the record does not decode.
+     */
+    private static Task readFramedTask(MappedByteBuffer in, CRC32C crc, byte[] scratch, boolean hasId) {
+        int length = in.getInt();
+        if (length < 0 || length + Integer.BYTES > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        ByteBuffer record = in.slice(in.position(), length);
+        in.position(in.position() + length);
+        int expected = in.getInt();
+
+        crc.reset();
+        crc.update(record.duplicate());
+        if ((int) crc.getValue() != expected) {
+            return null;
+        }
+        try {
+            Task t = readTask(record, scratch, hasId);
+            return record.hasRemaining() ? null : t;
+        } catch (BufferUnderflowException | IllegalArgumentException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Describes the bytes {@code [from, to)} for the quarantine file.
+     */
+    private static String describe(ByteBuffer in, int from, int to) {
+        byte[] raw = new byte[to - from];
+        in.get(from, raw);
+        return "binary record at byte " + from + ": " + Base64.getEncoder().encodeToString(raw);
+    }
+
+    private static Task readTask(ByteBuffer in, byte[] scratch, boolean hasId) {
+        int id = hasId ? in.getInt() : 0;
+        char type = (char) in.get();
+        boolean isDone = in.get() == 1;
+        String desc = readString(in, scratch);
+        if (desc.isBlank()) {
+            return null;
+        }
+
+        Task t;
+        switch (type) {
+        case 'T':
+            t = new Todo(desc);
+            break;
+        case 'D':
+            t = new Deadline(desc, LocalDate.ofEpochDay(in.getLong()));
+            break;
+        case 'E':
+            String from = readTime(in, scratch);
+            String to = readTime(in, scratch);
+            t = new Event(desc, from, to);
+            break;
+        default:
+            return null;
+        }
+
+        if (isDone) {
+            t.markDone();
+        }
+        if (id > 0) {
+            t.setId(id);
+        }
+        return t;
+    }
+
+    private static String readString(ByteBuffer in, byte[] scratch) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] buf = length <= scratch.length ? scratch : new byte[length];
+        in.get(buf, 0, length);
+        return new String(buf, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static String readTime(ByteBuffer in, byte[] scratch) {
+        byte kind = in.get();
+        switch (kind) {
+        case TIME_DATE:
+            return formatDate(LocalDate.ofEpochDay(in.getLong()));
+        case TIME_DATE_TIME:
+            return formatDateTime(LocalDateTime.ofEpochSecond(in.getLong(), 0, ZoneOffset.UTC));
+        case TIME_TEXT:
+            return readString(in, scratch);
+        default:
+            throw new IllegalArgumentException("Unknown time kind " + kind);
+        }
+    }
+
+    /**
+     * Byte array stream that exposes its buffer, so a record can be checksummed without copying it.
+     */
+    private static class RecordBuffer extends ByteArrayOutputStream {
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
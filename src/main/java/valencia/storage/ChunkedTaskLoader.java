@@ -0,0 +1,229 @@
+package valencia.storage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import valencia.task.Task;
+
+/**
+ * Reads the tasks in a data file, in file order, without holding every line in memory.
+ *
+ * <p>Small files are streamed line by line. Larger files are split into line-aligned chunks that are
+ * memory-mapped and decoded in parallel on the common fork-join pool; the per-chunk results are then
+ * concatenated in their original order. In both paths, lines that cannot be decoded (including lines whose
+ * checksum does not match) are skipped and returned separately so they can be quarantined.
+ *
+ * <p>Snapshots are always written whole, so either every line of a file has a checksum or (in files written
+ * before checksums existed) none has. The first line decides which: if it has one, a later line without one was
+ * damaged and is treated as corrupt.
+ */
+class ChunkedTaskLoader {
+    /** Files smaller than this are read sequentially; splitting them costs more than it saves. */
+    static final long PARALLEL_THRESHOLD_BYTES = 1L << 20;
+    private static final long CHUNK_BYTES = 1L << 20;
+    private static final int BOUNDARY_SCAN_BYTES = 4096;
+
+    private ChunkedTaskLoader() {
+    }
+
+    /**
+     * Loads all valid tasks from the given file.
+     *
+     * @param path File to read (must exist).
+     * @return Tasks in file order, plus any corrupt lines.
+     * @throws IOException If the file cannot be read.
+     */
+    static LoadResult load(Path path) throws IOException {
+        if (Files.size(path) < PARALLEL_THRESHOLD_BYTES) {
+            return loadSequential(path);
+        }
+
+        boolean isChecksummed = isChecksummed(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = splitIntoChunks(channel, channel.size());
+            return ForkJoinPool.commonPool().invoke(
+                    new ChunkTask(channel, bounds, 0, bounds.length - 1, isChecksummed));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Streams the file line by line on the current thread.
+     */
+    static LoadResult loadSequential(Path path) throws IOException {
+        TaskCodec codec = null;
+        LoadResult result = new LoadResult();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (codec == null) {
+                    codec = new TaskCodec(RecordChecksum.hasChecksum(line, 0, line.length()));
+                }
+                Task t = codec.decode(line);
+                if (t != null) {
+                    result.tasks.add(t);
+                } else {
+                    result.corrupt.add(line);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the first non-blank line of the file ends with a checksum field.
+     */
+    private static boolean isChecksummed(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (!line.isBlank()) {
+                    return RecordChecksum.hasChecksum(line, 0, line.length());
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns chunk boundaries {@code b[0] = 0 < b[1] < ... < b[n] = size}, where every inner boundary
+     * sits just after a newline so that no line spans two chunks.
+     */
+    private static long[] splitIntoChunks(FileChannel channel, long size) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_BYTES);
+
+        long next = CHUNK_BYTES;
+        while (next < size) {
+            long boundary = findLineStart(channel, next, size, scan);
+            if (boundary >= size) {
+                break;
+            }
+            bounds.add(boundary);
+            next = boundary + CHUNK_BYTES;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the offset just after the first newline at or after {@code from}, or {@code size} if none.
+     */
+    private static long findLineStart(FileChannel channel, long from, long size, ByteBuffer scan)
+            throws IOException {
+        long pos = from;
+        while (pos < size) {
+            scan.clear();
+            int read = channel.read(scan, pos);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    /**
+     * Decodes the chunks {@code [first, last)} of the file, splitting the range in half until one chunk is left.
+     */
+    private static class ChunkTask extends RecursiveTask<LoadResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int first;
+        private final int last;
+        private final boolean isChecksummed;
+
+        ChunkTask(FileChannel channel, long[] bounds, int first, int last, boolean isChecksummed) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+            this.isChecksummed = isChecksummed;
+        }
+
+        @Override
+        protected LoadResult compute() {
+            if (last - first == 1) {
+                return decodeChunk(bounds[first], bounds[last]);
+            }
+            int mid = (first + last) >>> 1;
+            ChunkTask left = new ChunkTask(channel, bounds, first, mid, isChecksummed);
+            ChunkTask right = new ChunkTask(channel, bounds, mid, last, isChecksummed);
+            right.fork();
+            return left.compute().append(right.join());
+        }
+
+        private LoadResult decodeChunk(long start, long end) {
+            CharBuffer text;
+            try {
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+                text = decoder.decode(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            TaskCodec codec = new TaskCodec(isChecksummed);
+            LoadResult result = new LoadResult();
+            int length = text.length();
+            int lineStart = 0;
+            while (lineStart < length) {
+                int lineEnd = lineStart;
+                while (lineEnd < length && text.charAt(lineEnd) != '\n' && text.charAt(lineEnd) != '\r') {
+                    lineEnd++;
+                }
+                if (!isBlank(text, lineStart, lineEnd)) {
+                    Task t = codec.decode(text, lineStart, lineEnd);
+                    if (t != null) {
+                        result.tasks.add(t);
+                    } else {
+                        result.corrupt.add(text.subSequence(lineStart, lineEnd).toString());
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+            return result;
+        }
+
+        private static boolean isBlank(CharSequence text, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (!Character.isWhitespace(text.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
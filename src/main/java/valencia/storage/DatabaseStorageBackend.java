@@ -0,0 +1,359 @@
+package valencia.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import valencia.task.DateParser;
+import valencia.task.Deadline;
+import valencia.task.Edit;
+import valencia.task.Event;
+import valencia.task.Task;
+import valencia.task.TaskList;
+import valencia.task.Todo;
+
+/**
+ * Stores tasks in an embedded H2 database file (e.g. "data/valencia" becomes "data/valencia.mv.db").
+ * No server is needed; the database lives entirely in that file.
+ *
+ * <p>Each task is one row whose primary key is the task ID, so rows come back in list order and every
+ * mutation touches exactly one row.
+ * Rows that cannot be turned back into a task are skipped on load and reported through {@link #pollError()}.
+ */
+public class DatabaseStorageBackend implements StorageBackend {
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS tasks ("
+            + "id BIGINT PRIMARY KEY, "
+            + "kind CHAR(1) NOT NULL, "
+            + "is_done BOOLEAN NOT NULL, "
+            + "description VARCHAR NOT NULL, "
+            + "extra1 VARCHAR, "
+            + "extra2 VARCHAR)";
+    private static final String SELECT_ALL =
+            "SELECT id, kind, is_done, description, extra1, extra2 FROM tasks ORDER BY id";
+    private static final String INSERT =
+            "INSERT INTO tasks (id, kind, is_done, description, extra1, extra2) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_DONE = "UPDATE tasks SET is_done = ? WHERE id = ?";
+    private static final String DELETE = "DELETE FROM tasks WHERE id = ?";
+    private static final String DELETE_ALL = "DELETE FROM tasks";
+
+    private final Path dbPath;
+    private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+    private Connection connection = null;
+    private SaveStats saveStats = new SaveStats(0, 0, 0, 0, 0, true);
+
+    /**
+     * Creates a backend that reads/writes the database at the given relative path (without the ".mv.db" suffix).
+     * The database is opened on first use.
+     *
+     * @param relativePath Database path (e.g. "data/valencia").
+     */
+    public DatabaseStorageBackend(String relativePath) {
+        assert relativePath != null && !relativePath.isBlank() : "relativePath must be non-null and non-blank";
+        this.dbPath = Paths.get(relativePath).toAbsolutePath();
+    }
+
+    private Connection connection() throws SQLException {
+        if (connection != null) {
+            return connection;
+        }
+        try {
+            Path parent = dbPath.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent); // create data/ folder if missing
+            }
+        } catch (IOException e) {
+            throw new SQLException("Could not create the folder for " + dbPath, e);
+        }
+
+        Connection c = DriverManager.getConnection("jdbc:h2:file:" + dbPath);
+        try (Statement s = c.createStatement()) {
+            s.execute(CREATE_TABLE);
+        } catch (SQLException e) {
+            c.close();
+            throw e;
+        }
+        connection = c;
+        return c;
+    }
+
+    @Override
+    public synchronized TaskList load() {
+        TaskList taskList = new TaskList();
+        int corrupt = 0;
+        try (Statement s = connection().createStatement(); ResultSet rows = s.executeQuery(SELECT_ALL)) {
+            while (rows.next()) {
+                Task t = readTask(rows);
+                if (t == null) {
+                    corrupt++;
+                    continue;
+                }
+                taskList.add(t);
+            }
+        } catch (SQLException e) {
+            errors.add("Could not read tasks from " + dbPath + ": " + e.getMessage());
+        }
+        if (corrupt > 0) {
+            errors.add("Skipped " + corrupt + " unreadable task row(s) in " + dbPath);
+        }
+        return taskList;
+    }
+
+    /**
+     * Turns the current row back into a task.
+     *
+     * @return The task, or null if the row does not describe a valid task.
+     */
+    private static Task readTask(ResultSet row) throws SQLException {
+        String kind = row.getString("kind");
+        String desc = row.getString("description");
+        String extra1 = row.getString("extra1");
+        String extra2 = row.getString("extra2");
+        if (kind == null || kind.length() != 1 || desc == null || desc.isBlank()) {
+            return null;
+        }
+
+        Task t;
+        switch (kind.charAt(0)) {
+        case 'T':
+            t = new Todo(desc);
+            break;
+        case 'D':
+            LocalDate by = extra1 == null ? null : DateParser.parseDate(extra1, 0, extra1.length());
+            if (by == null) {
+                return null;
+            }
+            t = new Deadline(desc, by);
+            break;
+        case 'E':
+            if (extra1 == null || extra2 == null) {
+                return null;
+            }
+            t = new Event(desc, extra1, extra2);
+            break;
+        default:
+            return null;
+        }
+
+        if (row.getBoolean("is_done")) {
+            t.markDone();
+        }
+        long id = row.getLong("id");
+        if (id > 0 && id <= Integer.MAX_VALUE) {
+            t.setId((int) id); // rows written before task IDs existed may hold larger keys; those get a new ID
+        }
+        return t;
+    }
+
+    @Override
+    public List<TaskChange> beginUpdate(TaskList taskList) {
+        // the embedded database is locked by the process that opened it, so there is nothing to merge
+        return List.of();
+    }
+
+    @Override
+    public void endUpdate() {
+    }
+
+    @Override
+    public synchronized void insert(Task task, TaskList taskList) {
+        assert task != null : "inserted task should not be null";
+        long start = System.nanoTime();
+        boolean isOk = true;
+        try (PreparedStatement s = connection().prepareStatement(INSERT)) {
+            bindTask(s, task);
+            s.executeUpdate();
+        } catch (SQLException e) {
+            isOk = false;
+            errors.add("Could not save the new task to " + dbPath + ": " + e.getMessage());
+        }
+        record(start, isOk);
+    }
+
+    private static void bindTask(PreparedStatement s, Task task) throws SQLException {
+        char type = task.getTypeCode();
+        String extra1 = null;
+        String extra2 = null;
+        switch (type) {
+        case 'D':
+            extra1 = ((Deadline) task).getBy().toString();
+            break;
+        case 'E':
+            extra1 = ((Event) task).getFrom();
+            extra2 = ((Event) task).getTo();
+            break;
+        default:
+            break;
+        }
+        s.setLong(1, task.getId());
+        s.setString(2, String.valueOf(type));
+        s.setBoolean(3, task.isDone());
+        s.setString(4, task.getDescription());
+        s.setString(5, extra1);
+        s.setString(6, extra2);
+    }
+
+    @Override
+    public synchronized void updateDone(Task task, TaskList taskList) {
+        assert task != null && task.getId() > 0 : "updated task should have an id";
+        long start = System.nanoTime();
+        boolean isOk = true;
+        try (PreparedStatement s = connection().prepareStatement(UPDATE_DONE)) {
+            s.setBoolean(1, task.isDone());
+            s.setLong(2, task.getId());
+            if (s.executeUpdate() == 0) {
+                errors.add("Could not update task #" + task.getId() + " in " + dbPath + ": it was never saved");
+            }
+        } catch (SQLException e) {
+            isOk = false;
+            errors.add("Could not update task #" + task.getId() + " in " + dbPath + ": " + e.getMessage());
+        }
+        record(start, isOk);
+    }
+
+    @Override
+    public synchronized void delete(Task task, TaskList taskList) {
+        assert task != null && task.getId() > 0 : "deleted task should have an id";
+        long start = System.nanoTime();
+        boolean isOk = true;
+        try (PreparedStatement s = connection().prepareStatement(DELETE)) {
+            s.setLong(1, task.getId());
+            s.executeUpdate();
+        } catch (SQLException e) {
+            isOk = false;
+            errors.add("Could not delete task #" + task.getId() + " from " + dbPath + ": " + e.getMessage());
+        }
+        record(start, isOk);
+    }
+
+    /**
+     * Writes the edits in one transaction, batching the statements of each kind, so either all of them are
+     * stored or (if one fails) none are. The batches are run before each insert, so statements about the same
+     * task run in the order of its edits.
+     */
+    @Override
+    public synchronized void saveEdits(List<Edit> edits, TaskList taskList) {
+        assert edits != null : "edits should not be null";
+        if (edits.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        boolean isOk = true;
+        try {
+            Connection c = connection();
+            c.setAutoCommit(false);
+            try (PreparedStatement insert = c.prepareStatement(INSERT);
+                    PreparedStatement update = c.prepareStatement(UPDATE_DONE);
+                    PreparedStatement delete = c.prepareStatement(DELETE)) {
+                for (Edit edit : edits) {
+                    Task task = edit.getTask();
+                    switch (edit.getKind()) {
+                    case ADD:
+                        // the task may be one changed and removed earlier in this batch, so the statements
+                        // queued for its old row run first and every statement runs in edit order
+                        update.executeBatch();
+                        delete.executeBatch();
+                        bindTask(insert, task);
+                        insert.executeUpdate();
+                        break;
+                    case REMOVE:
+                        delete.setLong(1, task.getId());
+                        delete.addBatch();
+                        break;
+                    default:
+                        update.setBoolean(1, edit.getKind() == Edit.Kind.MARK);
+                        update.setLong(2, task.getId());
+                        update.addBatch();
+                        break;
+                    }
+                }
+                update.executeBatch();
+                delete.executeBatch();
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            isOk = false;
+            errors.add("Could not save " + edits.size() + " changes to " + dbPath + ": " + e.getMessage());
+        }
+        record(start, isOk);
+    }
+
+    /**
+     * Replaces every row in one transaction, so a failed save leaves the previous tasks intact.
+     */
+    @Override
+    public synchronized void save(TaskList taskList) {
+        assert taskList != null : "taskList to save should not be null";
+        long start = System.nanoTime();
+        boolean isOk = true;
+        try {
+            Connection c = connection();
+            c.setAutoCommit(false);
+            try (Statement clear = c.createStatement(); PreparedStatement insert = c.prepareStatement(INSERT)) {
+                clear.executeUpdate(DELETE_ALL);
+                for (Task t : taskList.getTasks()) {
+                    bindTask(insert, t);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            isOk = false;
+            errors.add("Could not save tasks to " + dbPath + ": " + e.getMessage());
+        }
+        record(start, isOk);
+    }
+
+    @Override
+    public void flush() {
+        // every change is committed before its method returns
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            errors.add("Could not close " + dbPath + ": " + e.getMessage());
+        }
+        connection = null;
+    }
+
+    @Override
+    public Optional<String> pollError() {
+        return Optional.ofNullable(errors.poll());
+    }
+
+    @Override
+    public synchronized SaveStats getSaveStats() {
+        return saveStats;
+    }
+
+    private void record(long start, boolean isOk) {
+        saveStats = saveStats.record(System.nanoTime() - start, isOk);
+    }
+}
@@ -0,0 +1,20 @@
+package valencia.storage;
+
+/**
+ * How hard a {@link Storage} tries to make saved data survive a crash or power loss.
+ * Every level writes snapshots through a temp file and an atomic rename, so a crash never leaves a
+ * half-written data file; the levels only differ in when written data is forced (fsync-ed) to the disk.
+ */
+public enum Durability {
+    /** Never fsync; leave flushing to the operating system. Fastest. */
+    NONE,
+    /** Fsync once when the Storage is closed (e.g. on {@code bye}). */
+    ON_CLOSE,
+    /** Fsync on every commit. Safest, and cheap when combined with write-behind batching. */
+    EVERY_COMMIT,
+    /**
+     * Fsync on a commit if the last fsync is older than the configured interval, and on close. In write-behind
+     * mode the writer also fsyncs on a timer, so nothing stays unsynced for longer than the interval.
+     */
+    PERIODIC
+}
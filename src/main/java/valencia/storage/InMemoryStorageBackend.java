@@ -0,0 +1,120 @@
+package valencia.storage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+
+import valencia.task.Edit;
+import valencia.task.Task;
+import valencia.task.TaskList;
+
+/**
+ * Keeps tasks in memory only, for tests and benchmarks. Nothing survives the JVM.
+ *
+ * <p>Tasks are held in their encoded line form rather than as the live objects, so later changes to a
+ * loaded TaskList only show up here when they are persisted, just like with a real backend. Lines are keyed by
+ * task ID so every change touches exactly one of them.
+ */
+public class InMemoryStorageBackend implements StorageBackend {
+    private final LinkedHashMap<Integer, String> lines = new LinkedHashMap<>();
+    private final TaskCodec codec = new TaskCodec();
+    private SaveStats saveStats = new SaveStats(0, 0, 0, 0, 0, true);
+
+    @Override
+    public synchronized TaskList load() {
+        TaskList taskList = new TaskList();
+        for (String line : lines.values()) {
+            Task t = codec.decode(line);
+            assert t != null : "stored line should always decode";
+            taskList.add(t);
+        }
+        return taskList;
+    }
+
+    @Override
+    public List<TaskChange> beginUpdate(TaskList taskList) {
+        // only this process can see the tasks
+        return List.of();
+    }
+
+    @Override
+    public void endUpdate() {
+    }
+
+    @Override
+    public synchronized void insert(Task task, TaskList taskList) {
+        assert task != null : "inserted task should not be null";
+        long start = System.nanoTime();
+        lines.put(task.getId(), encode(task));
+        record(start);
+    }
+
+    @Override
+    public synchronized void updateDone(Task task, TaskList taskList) {
+        assert lines.containsKey(task.getId()) : "no stored task with id " + task.getId();
+        long start = System.nanoTime();
+        lines.put(task.getId(), encode(task));
+        record(start);
+    }
+
+    @Override
+    public synchronized void delete(Task task, TaskList taskList) {
+        assert lines.containsKey(task.getId()) : "no stored task with id " + task.getId();
+        long start = System.nanoTime();
+        lines.remove(task.getId());
+        record(start);
+    }
+
+    @Override
+    public synchronized void saveEdits(List<Edit> edits, TaskList taskList) {
+        long start = System.nanoTime();
+        for (Edit edit : edits) {
+            Task task = edit.getTask();
+            if (edit.getKind() == Edit.Kind.REMOVE) {
+                lines.remove(task.getId());
+            } else {
+                lines.put(task.getId(), encode(task));
+            }
+        }
+        record(start);
+    }
+
+    @Override
+    public synchronized void save(TaskList taskList) {
+        assert taskList != null : "taskList to save should not be null";
+        long start = System.nanoTime();
+        lines.clear();
+        for (Task t : taskList.getTasks()) {
+            lines.put(t.getId(), encode(t));
+        }
+        record(start);
+    }
+
+    @Override
+    public void flush() {
+        // every change is applied immediately
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+
+    @Override
+    public Optional<String> pollError() {
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized SaveStats getSaveStats() {
+        return saveStats;
+    }
+
+    private String encode(Task task) {
+        return codec.encode(task, new StringBuilder()).toString();
+    }
+
+    private void record(long start) {
+        saveStats = saveStats.record(System.nanoTime() - start, true);
+    }
+}
@@ -0,0 +1,35 @@
+package valencia.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import valencia.task.Task;
+
+/**
+ * Tasks read from a file, plus the raw form of every record that was corrupt and had to be skipped.
+ */
+class LoadResult {
+    final List<Task> tasks;
+    final List<String> corrupt;
+
+    LoadResult() {
+        this(new ArrayList<>(), new ArrayList<>());
+    }
+
+    LoadResult(List<Task> tasks, List<String> corrupt) {
+        this.tasks = tasks;
+        this.corrupt = corrupt;
+    }
+
+    /**
+     * Appends the contents of a later part of the same file.
+     *
+     * @param next Result for the part that follows this one.
+     * @return This result.
+     */
+    LoadResult append(LoadResult next) {
+        tasks.addAll(next.tasks);
+        corrupt.addAll(next.corrupt);
+        return this;
+    }
+}
@@ -0,0 +1,126 @@
+package valencia.storage;
+
+import java.util.zip.CRC32C;
+
+/**
+ * Adds and verifies the CRC32C checksum that ends every record line, e.g. {@code T | 1 | read book | ~1a2b3c4d}.
+ * The checksum covers the UTF-8 bytes of the line before its own {@code |} separator.
+ *
+ * <p>Lines without a checksum were written before checksums existed. Callers only accept them from such legacy
+ * files; anywhere else a missing checksum means the line was cut short, e.g. by a crash during an append.
+ * Keeps a scratch buffer between calls, so each thread should use its own instance.
+ */
+class RecordChecksum {
+    private static final char MARKER = '~';
+    private static final int HEX_DIGITS = 8;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final CRC32C crc = new CRC32C();
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Appends {@code " | ~xxxxxxxx"} for the record that starts at {@code lineStart} in {@code out}.
+     *
+     * @param out       Buffer holding the record.
+     * @param lineStart Index in {@code out} where the record starts.
+     */
+    void append(StringBuilder out, int lineStart) {
+        int value = compute(out, lineStart, out.length());
+        out.append(" | ").append(MARKER);
+        for (int shift = (HEX_DIGITS - 1) * 4; shift >= 0; shift -= 4) {
+            out.append(HEX[(value >>> shift) & 0xF]);
+        }
+    }
+
+    /**
+     * Verifies the checksum of the line {@code [start, end)}.
+     *
+     * @param isRequired Whether a line without a checksum field fails; if not, it is accepted as it is.
+     * @return Index where the record content ends (before the checksum field, or {@code end} if the line
+     *     has no checksum and none is required), or -1 if the line fails.
+     */
+    int verify(CharSequence text, int start, int end, boolean isRequired) {
+        int contentEnd = contentEnd(text, start, end);
+        if (contentEnd < 0) {
+            return isRequired ? -1 : end;
+        }
+        int expected = 0;
+        for (int i = end - HEX_DIGITS; i < end; i++) {
+            expected = (expected << 4) | Character.digit(text.charAt(i), 16);
+        }
+        return compute(text, start, contentEnd) == expected ? contentEnd : -1;
+    }
+
+    /**
+     * Returns true if the line {@code [start, end)} ends with a checksum field, whether or not it matches.
+     */
+    static boolean hasChecksum(CharSequence text, int start, int end) {
+        return contentEnd(text, start, end) >= 0;
+    }
+
+    /**
+     * Returns the index where the record content ends before the {@code " | ~xxxxxxxx"} field, or -1 if the line
+     * does not end with such a field.
+     */
+    private static int contentEnd(CharSequence text, int start, int end) {
+        int markerAt = end - HEX_DIGITS - 1;
+        if (markerAt <= start || text.charAt(markerAt) != MARKER) {
+            return -1;
+        }
+        for (int i = markerAt + 1; i < end; i++) {
+            if (Character.digit(text.charAt(i), 16) < 0) {
+                return -1;
+            }
+        }
+
+        int contentEnd = markerAt;
+        while (contentEnd > start && TaskCodec.isSplitWhitespace(text.charAt(contentEnd - 1))) {
+            contentEnd--;
+        }
+        if (contentEnd == start || text.charAt(contentEnd - 1) != '|') {
+            return -1;
+        }
+        contentEnd--;
+        while (contentEnd > start && TaskCodec.isSplitWhitespace(text.charAt(contentEnd - 1))) {
+            contentEnd--;
+        }
+        return contentEnd;
+    }
+
+    /**
+     * Computes the CRC32C of the UTF-8 encoding of {@code [start, end)} without allocating per call.
+     */
+    private int compute(CharSequence text, int start, int end) {
+        int needed = (end - start) * 3;
+        if (scratch.length < needed) {
+            scratch = new byte[Math.max(needed, scratch.length * 2)];
+        }
+
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                scratch[n++] = (byte) c;
+            } else if (c < 0x800) {
+                scratch[n++] = (byte) (0xC0 | (c >> 6));
+                scratch[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, text.charAt(++i));
+                scratch[n++] = (byte) (0xF0 | (cp >> 18));
+                scratch[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                scratch[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                scratch[n++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                scratch[n++] = (byte) '?'; // same replacement the UTF-8 encoder uses for a lone surrogate
+            } else {
+                scratch[n++] = (byte) (0xE0 | (c >> 12));
+                scratch[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                scratch[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        crc.reset();
+        crc.update(scratch, 0, n);
+        return (int) crc.getValue();
+    }
+}
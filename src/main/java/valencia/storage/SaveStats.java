@@ -0,0 +1,74 @@
+package valencia.storage;
+
+/**
+ * Latency and outcome counters for the commits made by a {@link StorageBackend}.
+ * Instances are immutable snapshots; call {@link StorageBackend#getSaveStats()} again for fresh numbers.
+ */
+public class SaveStats {
+    private final long commits;
+    private final long failures;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long lastNanos;
+    private final boolean isLastOk;
+
+    SaveStats(long commits, long failures, long totalNanos, long maxNanos, long lastNanos, boolean isLastOk) {
+        this.commits = commits;
+        this.failures = failures;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.lastNanos = lastNanos;
+        this.isLastOk = isLastOk;
+    }
+
+    /**
+     * Returns a copy of these stats with one more commit recorded.
+     *
+     * @param nanos Time the commit took.
+     * @param isOk  Whether the commit succeeded.
+     * @return Updated stats.
+     */
+    SaveStats record(long nanos, boolean isOk) {
+        return new SaveStats(commits + 1, failures + (isOk ? 0 : 1), totalNanos + nanos,
+                Math.max(maxNanos, nanos), nanos, isOk);
+    }
+
+    public long getCommits() {
+        return commits;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getLastNanos() {
+        return lastNanos;
+    }
+
+    /**
+     * Returns the mean commit latency.
+     *
+     * @return Average nanoseconds per commit, or 0 if nothing was committed yet.
+     */
+    public long getAverageNanos() {
+        return commits == 0 ? 0 : totalNanos / commits;
+    }
+
+    public boolean isLastOk() {
+        return isLastOk;
+    }
+
+    @Override
+    public String toString() {
+        if (commits == 0) {
+            return "No saves yet.";
+        }
+        return String.format("Saves: %d (%d failed)\nLatency: avg %.2f ms, max %.2f ms, last %.2f ms (%s)",
+                commits, failures, getAverageNanos() / 1e6, maxNanos / 1e6, lastNanos / 1e6,
+                isLastOk ? "ok" : "failed");
+    }
+}
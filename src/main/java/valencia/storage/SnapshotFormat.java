@@ -0,0 +1,12 @@
+package valencia.storage;
+
+/**
+ * File formats a {@link Storage} can write its snapshot in.
+ * Loading always detects the format from the file header, so switching formats converts the file on the next save.
+ */
+public enum SnapshotFormat {
+    /** Human-readable lines like {@code T | 1 | read book}. */
+    TEXT,
+    /** Compact, memory-mappable binary records (see {@link BinaryTaskCodec}). */
+    BINARY
+}
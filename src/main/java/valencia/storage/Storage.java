@@ -1,193 +1,1047 @@
 package valencia.storage;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 
-import valencia.task.Deadline;
-import valencia.task.Event;
+import valencia.task.Edit;
 import valencia.task.Task;
 import valencia.task.TaskList;
-import valencia.task.Todo;
 
 /**
  * Handles loading tasks from a local text file and saving tasks back into the same file.
- * Uses a simple line-based format: TYPE | DONE | DESC | (extra fields...)
+ * Uses a simple line-based format: TYPE | DONE | DESC | (extra fields...) | ~CRC32C
+ *
+ * <p>Every record ends with a checksum field (see {@link RecordChecksum}). Records that fail their
+ * checksum, lack one (only data files from before checksums may) or cannot be read are skipped on load and
+ * copied to a quarantine file (e.g. "data/valencia.txt.corrupt"), and a warning with their count is reported
+ * through {@link #pollError()}. The files are then rewritten without them, so each is quarantined only once.
+ *
+ * <p>In journaled mode, each mutation appends one small record to a journal file next to the
+ * data file (e.g. "data/valencia.txt.journal") instead of rewriting every task. Once the journal
+ * holds {@code compactThreshold} records it is compacted into a fresh snapshot of the data file.
+ * Journal records name tasks by their ID and look like:
+ * <pre>
+ * + | #4 | T | 0 | read book | ~2fb0f5fa     (task #4 added, in its place by ID)
+ * M | #3 | ~ee5f74c9                         (task #3 marked done)
+ * U | #3 | ~4e555ce8                         (task #3 marked not done)
+ * X | #3 | ~73961899                         (task #3 deleted)
+ * </pre>
+ * Records naming a task by its list index ("M | 3"), as written by older versions, are still read.
+ *
+ * <p>The snapshot itself can be written as text or in a compact binary format (see {@link SnapshotFormat});
+ * the format of an existing file is detected from its header when loading.
+ *
+ * <p>In write-behind mode (see {@link #enableWriteBehind(long)}), serialized data is handed to a
+ * background writer so callers never block on disk. IO errors are never thrown; they are queued
+ * and can be collected with {@link #pollError()}.
+ *
+ * <p>Snapshots are never written in place. A new snapshot goes to "valencia.txt.tmp", is renamed to
+ * "valencia.txt.new" once complete, then the journal is cleared and the file is renamed over
+ * "valencia.txt". A ".new" file found on load is a finished snapshot whose install was interrupted,
+ * so loading completes the install first. When written data is fsync-ed is set by {@link Durability}.
+ *
+ * <p>Several processes (e.g. the CLI and the GUI) can share one data file. Each command runs between
+ * {@link #beginUpdate(TaskList)} and {@link #endUpdate()}, which hold an exclusive lock on "valencia.txt.lock".
+ * On entry, the data file and journal are compared with the versions this Storage last read or wrote;
+ * if only the journal grew, just the new records are applied, otherwise the whole file is reread.
+ * {@link #watch(Runnable)} reports such changes as they happen, so they can be shown without waiting for a command.
  */
-public class Storage {
+public class Storage implements StorageBackend {
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String COMPLETE_SUFFIX = ".new";
+    private static final String QUARANTINE_SUFFIX = ".corrupt";
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 1000;
+    private static final char RECORD_ADD = '+';
+    private static final char RECORD_MARK = 'M';
+    private static final char RECORD_UNMARK = 'U';
+    private static final char RECORD_DELETE = 'X';
+    private static final String RECORD_SEPARATOR = " | ";
+
     private final Path filePath;
+    private final Path journalPath;
+    private final Path tempPath;
+    private final Path completePath;
+    private final Path quarantinePath;
+    private final Path lockPath;
+    private final boolean isJournaled;
+    private final int compactThreshold;
+    private final TaskCodec codec = new TaskCodec();
+    private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+    private final Semaphore updateLock = new Semaphore(1);
+    private FileChannel lockChannel = null;
+    private FileState knownSnapshot = null;
+    private long journalOffset = 0;
+    private int journalRecords = 0;
+    private int corruptRecords = 0;
+    private StorageWriter writer = null;
+    private StorageWatcher watcher = null;
+    private SnapshotFormat snapshotFormat = SnapshotFormat.TEXT;
+    private Durability durability = Durability.NONE;
+    private long fsyncIntervalMillis = DEFAULT_FSYNC_INTERVAL_MILLIS;
+    private long lastFsyncMillis = 0;
+    private boolean hasUnsyncedWrites = false;
+    private SaveStats saveStats = new SaveStats(0, 0, 0, 0, 0, true);
 
     /**
      * Creates a Storage that reads/writes to the given relative file path.
+     * Every mutation rewrites the whole file.
      *
      * @param relativePath File path (e.g. "data/valencia.txt").
      */
     public Storage(String relativePath) {
+        this(relativePath, false, 0);
+    }
+
+    /**
+     * Creates a journaled Storage that reads/writes to the given relative file path.
+     * Mutations are appended to a journal, which is compacted into the data file
+     * once it holds {@code compactThreshold} records.
+     *
+     * @param relativePath     File path (e.g. "data/valencia.txt").
+     * @param compactThreshold Number of journal records before compaction (must be positive).
+     */
+    public Storage(String relativePath, int compactThreshold) {
+        this(relativePath, true, compactThreshold);
+        assert compactThreshold > 0 : "compactThreshold should be positive";
+    }
+
+    private Storage(String relativePath, boolean isJournaled, int compactThreshold) {
         assert relativePath != null && !relativePath.isBlank() : "relativePath must be non-null and non-blank";
         this.filePath = Paths.get(relativePath);
+        this.journalPath = Paths.get(relativePath + JOURNAL_SUFFIX);
+        this.tempPath = Paths.get(relativePath + TEMP_SUFFIX);
+        this.completePath = Paths.get(relativePath + COMPLETE_SUFFIX);
+        this.quarantinePath = Paths.get(relativePath + QUARANTINE_SUFFIX);
+        this.lockPath = Paths.get(relativePath + LOCK_SUFFIX);
+        this.isJournaled = isJournaled;
+        this.compactThreshold = compactThreshold;
         assert this.filePath != null : "filePath should be initialized";
     }
 
+    /**
+     * Sets the format used for future snapshots. Existing files in the other format are still
+     * loaded, and are converted the next time a snapshot is saved.
+     *
+     * @param snapshotFormat Format to write snapshots in.
+     */
+    public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+        assert snapshotFormat != null : "snapshotFormat should not be null";
+        this.snapshotFormat = snapshotFormat;
+    }
+
+    /**
+     * Returns the format future snapshots are written in.
+     *
+     * @return Snapshot format.
+     */
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    /**
+     * Sets when written data is forced to disk.
+     *
+     * @param durability Durability level for future commits.
+     */
+    public synchronized void setDurability(Durability durability) {
+        assert durability != null : "durability should not be null";
+        this.durability = durability;
+    }
+
+    /**
+     * Sets the maximum time between fsyncs for {@link Durability#PERIODIC}. In write-behind mode the background
+     * writer also fsyncs on a timer, so written data never stays unsynced for longer than this.
+     *
+     * @param fsyncIntervalMillis Interval in milliseconds (0 or more).
+     */
+    public synchronized void setFsyncIntervalMillis(long fsyncIntervalMillis) {
+        assert fsyncIntervalMillis >= 0 : "fsyncIntervalMillis should not be negative";
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+    }
+
+    /**
+     * Returns latency and outcome counters for every commit made so far.
+     *
+     * @return Current save statistics.
+     */
+    @Override
+    public synchronized SaveStats getSaveStats() {
+        return saveStats;
+    }
+
+    /**
+     * Switches this Storage to write-behind mode. Saves return immediately and a background
+     * thread commits batched changes at most {@code maxDelayMillis} later. Pending changes are
+     * also flushed on {@link #flush()}, {@link #close()} and JVM shutdown.
+     *
+     * @param maxDelayMillis Maximum time a change may wait before being written (0 or more).
+     */
+    public void enableWriteBehind(long maxDelayMillis) {
+        assert maxDelayMillis >= 0 : "maxDelayMillis should not be negative";
+        if (writer != null) {
+            return;
+        }
+        writer = new StorageWriter(this, maxDelayMillis);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "valencia-storage-shutdown"));
+    }
+
+    /**
+     * Blocks until every change handed to this Storage has been written to disk.
+     * Does nothing when writing synchronously.
+     */
+    @Override
+    public void flush() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Flushes pending changes and stops the background writer, if any, then fsyncs anything
+     * still unsynced when durability is {@link Durability#ON_CLOSE} or {@link Durability#PERIODIC}.
+     * Later saves are written synchronously.
+     */
+    @Override
+    public void close() {
+        stopWatching();
+        StorageWriter current = writer;
+        writer = null;
+        if (current != null) {
+            current.close();
+        }
+        syncOnClose();
+    }
+
+    /**
+     * Starts watching the data file and journal for changes. After a burst of changes, {@code onChange} is run on
+     * a background thread; it would typically schedule a {@link #beginUpdate(TaskList)} on the thread that owns
+     * the TaskList, which then applies just the new journal records. Changes written by this Storage itself
+     * are ignored: the callback only runs if the files differ from the versions this Storage last read or wrote.
+     *
+     * @param onChange Called after another process changed the files.
+     */
+    public synchronized void watch(Runnable onChange) {
+        assert onChange != null : "onChange should not be null";
+        if (watcher != null) {
+            return;
+        }
+        Path directory = filePath.toAbsolutePath().getParent();
+        try {
+            Files.createDirectories(directory); // create data/ folder if missing
+            watcher = new StorageWatcher(directory, List.of(filePath.getFileName(), journalPath.getFileName()), () -> {
+                if (hasExternalChanges()) {
+                    onChange.run();
+                }
+            });
+        } catch (IOException e) {
+            errors.add("Could not watch " + filePath + " for changes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns true if the data file or journal is not the version this Storage last read or wrote.
+     * Waits for a commit in progress, so the files it writes are not mistaken for changes made elsewhere.
+     */
+    private synchronized boolean hasExternalChanges() {
+        return !Objects.equals(FileState.of(filePath), knownSnapshot) || sizeOf(journalPath) != journalOffset;
+    }
+
+    private synchronized void stopWatching() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
+    private synchronized void syncOnClose() {
+        if (!hasUnsyncedWrites || durability == Durability.NONE) {
+            return;
+        }
+        syncUnsyncedWrites();
+    }
+
+    /**
+     * Fsyncs the writes left unsynced by {@link Durability#PERIODIC} once the interval since the last fsync
+     * has passed. Called by the background writer when it is idle.
+     *
+     * @return Milliseconds until such an fsync is due, or 0 if no writes are waiting for one.
+     */
+    synchronized long syncIfDue() {
+        if (!hasUnsyncedWrites || durability != Durability.PERIODIC) {
+            return 0;
+        }
+        long remaining = lastFsyncMillis + fsyncIntervalMillis - System.currentTimeMillis();
+        if (remaining > 0) {
+            return remaining;
+        }
+        syncUnsyncedWrites();
+        return 0;
+    }
+
+    /**
+     * Returns true if some written data has not been fsync-ed yet.
+     */
+    synchronized boolean hasUnsyncedWrites() {
+        return hasUnsyncedWrites;
+    }
+
+    /**
+     * Fsyncs the data file, the journal and the directory holding them (for the renames of snapshot installs).
+     */
+    private void syncUnsyncedWrites() {
+        try {
+            forceFile(filePath);
+            forceFile(journalPath);
+            forceDirectory();
+            hasUnsyncedWrites = false;
+            lastFsyncMillis = System.currentTimeMillis();
+        } catch (IOException e) {
+            errors.add("Could not sync tasks to disk: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns and removes the oldest IO error recorded while saving, if any.
+     *
+     * @return Description of the error, or empty if all saves succeeded.
+     */
+    @Override
+    public Optional<String> pollError() {
+        return Optional.ofNullable(errors.poll());
+    }
+
     /**
      * Loads tasks from the file (if it exists). If file is missing or unreadable,
-     * returns an empty TaskList.
+     * returns an empty TaskList. In journaled mode, the journal is replayed on top
+     * of the loaded snapshot.
      *
      * @return TaskList containing tasks loaded from file.
      */
+    @Override
     public TaskList load() {
         assert filePath != null : "filePath should not be null";
 
         TaskList taskList = new TaskList();
         assert taskList != null : "taskList should not be null";
 
+        acquireLock();
+        try {
+            readAll(taskList);
+        } finally {
+            releaseLock();
+        }
+        return taskList;
+    }
+
+    /**
+     * Reads the snapshot and (in journaled mode) the journal into an empty TaskList,
+     * remembering which version of the files was read.
+     */
+    private synchronized void readAll(TaskList taskList) {
+        corruptRecords = 0;
+        journalRecords = 0;
+        journalOffset = 0;
+        finishInterruptedSave();
+        knownSnapshot = FileState.of(filePath);
+        loadSnapshot(taskList);
+        if (isJournaled) {
+            replayJournal(taskList, null);
+        }
+        if (corruptRecords > 0) {
+            dropQuarantined(taskList);
+        }
+    }
+
+    /**
+     * Replaces the data file and journal with a snapshot of the tasks read from them. The corrupt records
+     * skipped while reading are in the quarantine file by now, so this keeps them from being quarantined
+     * again by every later load.
+     */
+    private void dropQuarantined(TaskList taskList) {
+        journalRecords = 0;
+        commit(encodeSnapshot(taskList), null);
+    }
+
+    /**
+     * Takes the lock shared by every process using this data file, then applies any changes
+     * other processes saved since this Storage last read or wrote the file.
+     *
+     * @param taskList TaskList returned by {@link #load()}, updated in place.
+     * @return Changes that were applied, in order.
+     */
+    @Override
+    public List<TaskChange> beginUpdate(TaskList taskList) {
+        assert taskList != null : "taskList should not be null";
+        StorageWriter current = writer;
+        if (current != null && current.reclaimLock()) {
+            // the lock was held since the last command, so no other process can have changed the files
+            return new ArrayList<>();
+        }
+        acquireLock();
+        return refresh(taskList);
+    }
+
+    /**
+     * Releases the lock taken by {@link #beginUpdate(TaskList)}. In write-behind mode, if changes made meanwhile
+     * are still pending, the background writer releases it once they are written, so this never blocks.
+     */
+    @Override
+    public void endUpdate() {
+        StorageWriter current = writer;
+        if (current == null || !current.submitUnlock()) {
+            releaseLock();
+        }
+    }
+
+    /**
+     * Brings the TaskList up to date with the files. If the snapshot is the one last seen, only journal records
+     * appended since then are applied; otherwise (e.g. another process compacted the journal) everything is reread.
+     */
+    private synchronized List<TaskChange> refresh(TaskList taskList) {
+        finishInterruptedSave();
+        List<TaskChange> changes = new ArrayList<>();
+        long journalSize = sizeOf(journalPath);
+        if (Objects.equals(FileState.of(filePath), knownSnapshot) && journalSize >= journalOffset) {
+            if (isJournaled && journalSize > journalOffset) {
+                int corruptBefore = corruptRecords;
+                replayJournal(taskList, changes);
+                if (corruptRecords > corruptBefore) {
+                    dropQuarantined(taskList);
+                }
+            }
+            return changes;
+        }
+
+        TaskList latest = new TaskList();
+        readAll(latest);
+        diff(taskList, latest, changes);
+        taskList.setAll(latest.getTasks());
+        return changes;
+    }
+
+    /**
+     * Describes how {@code before} became {@code after}, matching tasks by ID: tasks whose ID is gone are reported
+     * as removed, then, in the new order, tasks with a new ID as added and tasks whose stored form changed as updated.
+     */
+    private void diff(TaskList before, TaskList after, List<TaskChange> changes) {
+        StringBuilder sb = new StringBuilder();
+        for (Task t : before.getTasks()) {
+            if (after.getById(t.getId()) == null) {
+                changes.add(new TaskChange(TaskChange.Kind.REMOVED, t));
+            }
+        }
+        for (Task t : after.getTasks()) {
+            Task old = before.getById(t.getId());
+            if (old == null) {
+                changes.add(new TaskChange(TaskChange.Kind.ADDED, t));
+            } else if (!encode(old, sb).equals(encode(t, new StringBuilder()))) {
+                changes.add(new TaskChange(TaskChange.Kind.UPDATED, t));
+            }
+        }
+    }
+
+    private String encode(Task task, StringBuilder sb) {
+        sb.setLength(0);
+        return codec.encode(task, sb).toString();
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Waits for and takes the lock on the lock file. Only one thread per Storage can hold it at a time.
+     * If the lock file cannot be used, a warning is recorded and work continues without it.
+     */
+    private void acquireLock() {
+        updateLock.acquireUninterruptibly();
+        try {
+            Path parent = lockPath.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent); // create data/ folder if missing
+            }
+            lockChannel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lockChannel.lock(); // held until lockChannel is closed
+        } catch (OverlappingFileLockException e) {
+            // another Storage in this JVM holds the lock; the exception has no message of its own
+            closeLockChannel();
+            errors.add("Could not lock " + lockPath + "; changes from other processes may be lost: "
+                    + "the file is already open in this process");
+        } catch (IOException e) {
+            closeLockChannel();
+            errors.add("Could not lock " + lockPath + "; changes from other processes may be lost: "
+                    + e.getMessage());
+        }
+    }
+
+    /**
+     * Releases the lock taken by {@link #acquireLock()}. May be called from a different thread than the one
+     * that took it.
+     */
+    void releaseLock() {
+        assert updateLock.availablePermits() == 0 : "lock should be held when releasing it";
+        closeLockChannel();
+        updateLock.release();
+    }
+
+    private void closeLockChannel() {
+        try {
+            if (lockChannel != null) {
+                lockChannel.close(); // also releases the lock
+            }
+        } catch (IOException e) {
+            // the lock is released when the channel is closed, even if closing reports an error
+        }
+        lockChannel = null;
+    }
+
+    /**
+     * Completes a snapshot install that was interrupted by a crash, and drops half-written temp files.
+     */
+    private synchronized void finishInterruptedSave() {
+        try {
+            Files.deleteIfExists(tempPath);
+            if (Files.exists(completePath)) {
+                installSnapshot();
+            }
+        } catch (IOException e) {
+            errors.add("Could not recover an interrupted save: " + e.getMessage());
+        }
+    }
+
+    private void loadSnapshot(TaskList taskList) {
         if (!Files.exists(filePath)) {
-            return taskList;
+            return;
         }
 
         try {
-            List<String> lines = Files.readAllLines(filePath);
-            assert lines != null : "readAllLines should not return null";
+            LoadResult result = BinaryTaskCodec.isBinary(filePath)
+                    ? BinaryTaskCodec.load(filePath)
+                    : ChunkedTaskLoader.load(filePath);
+            for (Task t : result.tasks) {
+                taskList.add(t);
+            }
+            quarantine(result.corrupt, filePath);
+        } catch (IOException e) {
+            errors.add("Could not read tasks from " + filePath + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies the journal records past {@code journalOffset}, i.e. those not yet reflected in the TaskList.
+     *
+     * @param changes Receives a description of every change applied, or null if not needed.
+     */
+    private void replayJournal(TaskList taskList, List<TaskChange> changes) {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
 
-            for (String line : lines) {
-                // invalid lines are ignored by design
-                if (line == null || line.isBlank()) {
+        List<String> corrupt = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            BufferedReader reader = new BufferedReader(
+                    Channels.newReader(channel.position(journalOffset), StandardCharsets.UTF_8));
+            for (String record = reader.readLine(); record != null; record = reader.readLine()) {
+                if (record.isBlank()) {
                     continue;
                 }
-                try {
-                    Task t = parseTask(line);
-                    if (t != null) {
-                        taskList.add(t);
-                    }
-                } catch (Exception ignore) {
-                    // Ignore invalid lines when loading
+                journalRecords++;
+                if (!applyRecord(record, taskList, changes)) {
+                    corrupt.add(record);
                 }
             }
+            journalOffset = channel.size();
         } catch (IOException e) {
-            // Ignore and return empty list if file cannot be read
+            errors.add("Could not read the journal " + journalPath + ": " + e.getMessage());
         }
+        quarantine(corrupt, journalPath);
+    }
 
-        return taskList;
+    /**
+     * Appends corrupt records to the quarantine file next to the data file and reports how many there were.
+     * Corrupt records are never loaded, but are kept so they can be repaired by hand.
+     */
+    private void quarantine(List<String> corrupt, Path source) {
+        corruptRecords += corrupt.size();
+        if (corrupt.isEmpty()) {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(corrupt.size()).append(" corrupt record(s) from ").append(source.getFileName())
+                .append(" at ").append(LocalDateTime.now()).append(System.lineSeparator());
+        for (String record : corrupt) {
+            sb.append(record).append(System.lineSeparator());
+        }
+        try {
+            Files.writeString(quarantinePath, sb.toString(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            errors.add("Skipped " + corrupt.size() + " corrupt record(s) in " + source + "; moved them to "
+                    + quarantinePath);
+        } catch (IOException e) {
+            errors.add("Skipped " + corrupt.size() + " corrupt record(s) in " + source
+                    + " but could not save them to " + quarantinePath + ": " + e.getMessage());
+        }
     }
 
     /**
-     * Converts a Task object into a single-line string format for saving.
+     * Returns the number of corrupt records skipped (and quarantined) by the last {@link #load()}.
+     *
+     * @return Corrupt record count.
      */
-    private String serializeTask(Task t) {
-        assert t != null : "task to serialize should not be null";
-        assert t.getDescription() != null : "task description should not be null";
+    public int getCorruptRecordCount() {
+        return corruptRecords;
+    }
 
-        String done = t.isDone() ? "1" : "0";
+    /**
+     * Applies a single journal record to the given TaskList.
+     * Records that do not fit the current list (e.g. an ID that is no longer there) are skipped.
+     * Mark, unmark and delete records name the task by ID ("M | #42"); the list index form written by older
+     * versions ("M | 3") is still understood.
+     *
+     * @param changes Receives a description of the change applied, or null if not needed.
+     * @return False if the record is corrupt (missing or bad checksum, or unreadable), true otherwise.
+     */
+    private boolean applyRecord(String record, TaskList taskList, List<TaskChange> changes) {
+        int contentEnd = codec.verify(record, 0, record.length());
+        if (contentEnd < 0) {
+            return false;
+        }
+        int bodyStart = skipWhitespace(record, 1);
+        if (bodyStart >= contentEnd || record.charAt(bodyStart) != '|') {
+            return false;
+        }
+        bodyStart = skipWhitespace(record, bodyStart + 1);
 
-        if (t instanceof Todo) {
-            String out = String.join(" | ", "T", done, t.getDescription());
-            assert !out.isBlank() : "serialized output should not be blank";
-            return out;
+        char code = record.charAt(0);
+        if (code == RECORD_ADD) {
+            Task t = codec.decode(record, bodyStart, contentEnd);
+            if (t == null) {
+                return false;
+            }
+            taskList.add(t);
+            recordChange(changes, TaskChange.Kind.ADDED, t);
+            return true;
         }
-        if (t instanceof Deadline) {
-            Deadline d = (Deadline) t;
-            assert d.getBy() != null : "deadline by-date should not be null";
-            String out = String.join(" | ", "D", done, t.getDescription(), d.getBy().toString());
-            assert !out.isBlank() : "serialized output should not be blank";
-            return out;
+
+        Task target;
+        if (bodyStart < contentEnd && record.charAt(bodyStart) == TaskCodec.ID_MARKER) {
+            int id = TaskCodec.parseId(record, bodyStart + 1, contentEnd);
+            if (id <= 0) {
+                return false;
+            }
+            target = taskList.getById(id);
+        } else {
+            int index = parseIndex(record, bodyStart, contentEnd);
+            if (index < 0) {
+                return false;
+            }
+            target = index < taskList.size() ? taskList.get(index) : null;
+        }
+        if (target == null) {
+            return true;
+        }
+
+        switch (code) {
+        case RECORD_MARK:
+            taskList.markDoneById(target.getId());
+            recordChange(changes, TaskChange.Kind.UPDATED, target);
+            return true;
+        case RECORD_UNMARK:
+            taskList.unmarkDoneById(target.getId());
+            recordChange(changes, TaskChange.Kind.UPDATED, target);
+            return true;
+        case RECORD_DELETE:
+            taskList.removeById(target.getId());
+            recordChange(changes, TaskChange.Kind.REMOVED, target);
+            return true;
+        default:
+            return false;
         }
-        if (t instanceof Event) {
-            Event e = (Event) t;
-            assert e.getFrom() != null : "event from should not be null";
-            assert e.getTo() != null : "event to should not be null";
-            String out = String.join(" | ", "E", done, t.getDescription(), e.getFrom(), e.getTo());
-            assert !out.isBlank() : "serialized output should not be blank";
-            return out;
+    }
+
+    private static void recordChange(List<TaskChange> changes, TaskChange.Kind kind, Task task) {
+        if (changes != null) {
+            changes.add(new TaskChange(kind, task));
         }
+    }
 
-        // fallback
-        String out = String.join(" | ", "T", done, t.getDescription());
-        assert !out.isBlank() : "serialized output should not be blank";
-        return out;
+    private static int skipWhitespace(String text, int from) {
+        int i = from;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
     }
 
     /**
-     * Parses a single saved line into a Task object.
+     * Parses a non-negative decimal index in {@code [start, contentEnd)} (trailing whitespace allowed).
      *
-     * @param line One line from the save file.
-     * @return Parsed Task, or null if the line is invalid.
+     * @return The index, or -1 if the text is not a valid index.
      */
-    private Task parseTask(String line) {
-        assert line != null : "line to parse should not be null";
+    private static int parseIndex(String text, int start, int contentEnd) {
+        int end = contentEnd;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end || end - start > 9) {
+            return -1;
+        }
 
-        String[] parts = line.split("\\s*\\|\\s*");
-        assert parts != null : "split result should not be null";
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
 
-        if (parts.length < 3) {
-            return null;
+    /**
+     * Persists a task that was just added to the given TaskList (at the end, or back in its old place by ID).
+     *
+     * @param task     Task that was added.
+     * @param taskList TaskList after the add.
+     */
+    @Override
+    public void insert(Task task, TaskList taskList) {
+        assert task != null : "inserted task should not be null";
+        if (!isJournaled) {
+            save(taskList);
+            return;
         }
+        appendRecord(encodeRecord(new Edit(Edit.Kind.ADD, task), new StringBuilder()), taskList);
+    }
 
-        String type = parts[0];
-        boolean done = "1".equals(parts[1]);
-        String desc = parts[2];
+    /**
+     * Persists a change of done state for the given task.
+     *
+     * @param task     Task whose done state changed (already updated).
+     * @param taskList TaskList after the change.
+     */
+    @Override
+    public void updateDone(Task task, TaskList taskList) {
+        assert task != null && task.getId() > 0 : "updated task should have an id";
+        if (!isJournaled) {
+            save(taskList);
+            return;
+        }
+        Edit.Kind kind = task.isDone() ? Edit.Kind.MARK : Edit.Kind.UNMARK;
+        appendRecord(encodeRecord(new Edit(kind, task), new StringBuilder()), taskList);
+    }
 
-        assert type != null : "type should not be null";
-        assert desc != null : "description should not be null";
+    /**
+     * Persists the removal of the given task.
+     *
+     * @param task     Task that was removed.
+     * @param taskList TaskList after the removal.
+     */
+    @Override
+    public void delete(Task task, TaskList taskList) {
+        assert task != null && task.getId() > 0 : "deleted task should have an id";
+        if (!isJournaled) {
+            save(taskList);
+            return;
+        }
+        appendRecord(encodeRecord(new Edit(Edit.Kind.REMOVE, task), new StringBuilder()), taskList);
+    }
 
-        Task t;
-        switch (type) {
-        case "T":
-            t = new Todo(desc);
-            break;
-        case "D":
-            if (parts.length < 4) {
-                return null;
-            }
-            LocalDate by = LocalDate.parse(parts[3]);
-            t = new Deadline(desc, by);
-            break;
-        case "E":
-            if (parts.length < 5) {
-                return null;
-            }
-            t = new Event(desc, parts[3], parts[4]);
-            break;
+    /**
+     * Persists several changes at once: their journal records are appended with a single write, or, if they
+     * would take the journal past the compaction threshold (or the Storage is not journaled), one snapshot
+     * is written instead.
+     *
+     * @param edits    Edits that were applied, in order.
+     * @param taskList TaskList after the edits.
+     */
+    @Override
+    public void saveEdits(List<Edit> edits, TaskList taskList) {
+        assert edits != null : "edits should not be null";
+        if (edits.isEmpty()) {
+            return;
+        }
+        if (!isJournaled || journalRecords + edits.size() >= compactThreshold) {
+            save(taskList);
+            return;
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (Edit edit : edits) {
+            int lineStart = lines.length();
+            codec.appendChecksum(encodeRecord(edit, lines), lineStart).append(System.lineSeparator());
+        }
+        journalRecords += edits.size();
+        submitJournal(lines.toString());
+    }
+
+    /**
+     * Appends the journal record for one edit (without its checksum) to {@code sb}, e.g. "M | #3".
+     */
+    private StringBuilder encodeRecord(Edit edit, StringBuilder sb) {
+        Task task = edit.getTask();
+        switch (edit.getKind()) {
+        case ADD:
+            return codec.encode(task, sb.append(RECORD_ADD).append(RECORD_SEPARATOR));
+        case REMOVE:
+            return sb.append(RECORD_DELETE).append(RECORD_SEPARATOR).append(TaskCodec.ID_MARKER).append(task.getId());
         default:
-            return null;
+            // the record holds the state the edit asked for, whatever the edit's task object says now
+            char kind = edit.getKind() == Edit.Kind.MARK ? RECORD_MARK : RECORD_UNMARK;
+            return sb.append(kind).append(RECORD_SEPARATOR).append(TaskCodec.ID_MARKER).append(task.getId());
+        }
+    }
+
+    /**
+     * Appends one record to the journal, compacting it into a snapshot once it grows too long.
+     */
+    private void appendRecord(StringBuilder record, TaskList taskList) {
+        assert isJournaled : "records are only appended in journaled mode";
+
+        if (journalRecords + 1 >= compactThreshold) {
+            save(taskList);
+            return;
         }
 
-        assert t != null : "parsed task should not be null";
+        journalRecords++;
+        submitJournal(codec.appendChecksum(record, 0).append(System.lineSeparator()).toString());
+    }
 
-        if (done) {
-            t.markDone();
+    private void submitJournal(String lines) {
+        if (writer != null) {
+            writer.submitJournal(lines);
         } else {
-            t.unmarkDone();
+            commit(null, lines);
         }
-        return t;
     }
 
     /**
      * Saves the given TaskList to the file. Creates parent directories if needed.
-     * Any IO errors are silently ignored.
+     * In journaled mode, this also compacts the journal away since the snapshot now covers it.
+     * IO errors are recorded and can be collected with {@link #pollError()}.
      *
      * @param taskList TaskList to save.
      */
+    @Override
     public void save(TaskList taskList) {
         assert filePath != null : "filePath should not be null";
         assert taskList != null : "taskList to save should not be null";
 
+        byte[] snapshot = encodeSnapshot(taskList);
+        journalRecords = 0;
+        if (writer != null) {
+            writer.submitSnapshot(snapshot);
+        } else {
+            commit(snapshot, null);
+        }
+    }
+
+    private byte[] encodeSnapshot(TaskList taskList) {
+        if (snapshotFormat == SnapshotFormat.BINARY) {
+            return taskList.read(BinaryTaskCodec::encode);
+        }
+
+        return taskList.read(tasks -> {
+            StringBuilder sb = new StringBuilder();
+            for (Task t : tasks) {
+                assert t != null : "task in taskList should not be null";
+                codec.encodeLine(t, sb).append(System.lineSeparator());
+            }
+            return sb.toString().getBytes(StandardCharsets.UTF_8);
+        });
+    }
+
+    /**
+     * Writes a snapshot (replacing the data file and clearing the journal) and then appends
+     * journal records. Either part may be null. Runs on the caller's thread, or on the
+     * background writer in write-behind mode. The time taken and the outcome are recorded
+     * in {@link #getSaveStats()}.
+     */
+    synchronized void commit(byte[] snapshot, String journal) {
+        long start = System.nanoTime();
+        boolean isOk = true;
         try {
             Path parent = filePath.getParent();
             if (parent != null) {
                 Files.createDirectories(parent); // create data/ folder if missing
             }
 
-            StringBuilder sb = new StringBuilder();
-            for (Task t : taskList.getTasks()) {
-                assert t != null : "task in taskList should not be null";
-                sb.append(serializeTask(t)).append(System.lineSeparator());
+            boolean shouldSync = isFsyncDue();
+            if (snapshot != null) {
+                writeSnapshot(snapshot, shouldSync);
+            }
+            if (journal != null) {
+                appendJournal(journal, shouldSync);
             }
+            if (shouldSync) {
+                lastFsyncMillis = System.currentTimeMillis();
+            } else {
+                hasUnsyncedWrites = true;
+            }
+        } catch (IOException e) {
+            isOk = false;
+            errors.add("Could not save tasks to " + filePath + ": " + e.getMessage());
+        }
+        saveStats = saveStats.record(System.nanoTime() - start, isOk);
+    }
+
+    private boolean isFsyncDue() {
+        switch (durability) {
+        case EVERY_COMMIT:
+            return true;
+        case PERIODIC:
+            return System.currentTimeMillis() - lastFsyncMillis >= fsyncIntervalMillis;
+        default:
+            return false;
+        }
+    }
 
-            Files.writeString(filePath, sb.toString());
+    /**
+     * Writes the snapshot to a temp file, marks it complete with a rename and installs it.
+     */
+    private void writeSnapshot(byte[] snapshot, boolean shouldSync) throws IOException {
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.wrap(snapshot);
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            if (shouldSync) {
+                channel.force(true);
+            }
+        }
+        moveAtomically(tempPath, completePath);
+        installSnapshot();
+        knownSnapshot = FileState.of(filePath);
+        journalOffset = 0;
+        if (shouldSync) {
+            forceDirectory();
+        }
+    }
+
+    /**
+     * Clears the journal (the complete snapshot already covers it) and renames the complete snapshot
+     * over the data file. Safe to repeat if interrupted at any point.
+     */
+    private void installSnapshot() throws IOException {
+        Files.deleteIfExists(journalPath);
+        moveAtomically(completePath, filePath);
+    }
+
+    private void appendJournal(String journal, boolean shouldSync) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buf = StandardCharsets.UTF_8.encode(journal);
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            if (shouldSync) {
+                channel.force(false);
+            }
+            journalOffset = channel.size();
+        }
+    }
+
+    private static void moveAtomically(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void forceFile(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Fsyncs the data directory so the renames themselves survive a crash.
+     * Not every platform can open a directory (e.g. Windows), in which case this is skipped.
+     */
+    private void forceDirectory() {
+        Path parent = filePath.toAbsolutePath().getParent();
+        if (parent == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(parent, StandardOpenOption.READ)) {
+            channel.force(true);
         } catch (IOException e) {
-            // Ignore save failures
+            // directory fsync is best effort
+        }
+    }
+
+    /**
+     * Identifies one version of a file by its file key (e.g. inode), modification time and size.
+     * Snapshots are installed by renaming a new file over the old one, so a new snapshot has a new
+     * file key even if its time and size happen to match the old one.
+     */
+    private static final class FileState {
+        private final Object fileKey;
+        private final FileTime modified;
+        private final long size;
+
+        private FileState(Object fileKey, FileTime modified, long size) {
+            this.fileKey = fileKey;
+            this.modified = modified;
+            this.size = size;
+        }
+
+        /**
+         * Returns the current state of the file, or null if it does not exist or cannot be read.
+         */
+        static FileState of(Path path) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                return new FileState(attrs.fileKey(), attrs.lastModifiedTime(), attrs.size());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FileState)) {
+                return false;
+            }
+            FileState other = (FileState) o;
+            return Objects.equals(fileKey, other.fileKey) && modified.equals(other.modified) && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileKey, modified, size);
         }
     }
 }
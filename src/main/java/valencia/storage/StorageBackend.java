@@ -0,0 +1,107 @@
+package valencia.storage;
+
+import java.util.List;
+import java.util.Optional;
+
+import valencia.task.Edit;
+import valencia.task.Task;
+import valencia.task.TaskList;
+
+/**
+ * Where tasks are persisted. Each change is reported with its own operation (insert, update of the done
+ * state, delete) so a backend only has to write what changed; {@link #save(TaskList)} replaces everything at once.
+ *
+ * <p>Every mutation is called after the change was applied to the given TaskList, which a backend may use
+ * to fall back to a full save. Backends never throw on IO problems; they record them for {@link #pollError()}.
+ *
+ * <p>Implementations: {@link Storage} (text or binary data file), {@link InMemoryStorageBackend} (tests and
+ * benchmarks) and {@link DatabaseStorageBackend} (embedded H2 database file).
+ */
+public interface StorageBackend {
+    /**
+     * Loads every stored task. Problems are recorded and skipped, so this never fails.
+     *
+     * @return TaskList containing the stored tasks (empty if there are none).
+     */
+    TaskList load();
+
+    /**
+     * Starts a command that reads or changes the tasks. Brings the given TaskList up to date with changes
+     * made by other processes sharing the same store, and keeps them from writing until {@link #endUpdate()}.
+     * Every call must be paired with a call to {@link #endUpdate()}.
+     *
+     * @param taskList TaskList previously returned by {@link #load()}, updated in place.
+     * @return Changes made by other processes that were applied to the TaskList, in order.
+     */
+    List<TaskChange> beginUpdate(TaskList taskList);
+
+    /**
+     * Ends the command started by {@link #beginUpdate(TaskList)}. Other processes may write again once
+     * the changes made during the command are on disk.
+     */
+    void endUpdate();
+
+    /**
+     * Persists a task that was just added to the given TaskList (at the end, or back in its old place by ID).
+     *
+     * @param task     Task that was added.
+     * @param taskList TaskList after the add.
+     */
+    void insert(Task task, TaskList taskList);
+
+    /**
+     * Persists a change of done state for the given task, identified by its ID.
+     *
+     * @param task     Task whose done state changed (already updated).
+     * @param taskList TaskList after the change.
+     */
+    void updateDone(Task task, TaskList taskList);
+
+    /**
+     * Persists the removal of the given task, identified by its ID.
+     *
+     * @param task     Task that was removed.
+     * @param taskList TaskList after the removal.
+     */
+    void delete(Task task, TaskList taskList);
+
+    /**
+     * Persists several changes that were applied to the given TaskList together (e.g. by one bulk command),
+     * with a single write rather than one per change. An empty list writes nothing.
+     *
+     * @param edits    Edits that were applied, in order.
+     * @param taskList TaskList after the edits.
+     */
+    void saveEdits(List<Edit> edits, TaskList taskList);
+
+    /**
+     * Replaces everything stored with the tasks in the given TaskList.
+     *
+     * @param taskList TaskList to save.
+     */
+    void save(TaskList taskList);
+
+    /**
+     * Blocks until every change handed to this backend has been written.
+     */
+    void flush();
+
+    /**
+     * Writes pending changes and releases any files or connections. Later calls may reopen them.
+     */
+    void close();
+
+    /**
+     * Returns and removes the oldest error recorded while loading or saving, if any.
+     *
+     * @return Description of the error, or empty if there is none.
+     */
+    Optional<String> pollError();
+
+    /**
+     * Returns latency and outcome counters for every commit made so far.
+     *
+     * @return Current save statistics.
+     */
+    SaveStats getSaveStats();
+}
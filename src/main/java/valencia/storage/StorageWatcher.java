@@ -0,0 +1,80 @@
+package valencia.storage;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+
+/**
+ * Background watcher used by {@link Storage#watch(Runnable)}.
+ * Listens for changes to a few files in one directory and runs a callback on its own thread after each burst of
+ * changes. Events that arrive while the previous burst is being handled are folded into a single callback.
+ */
+class StorageWatcher {
+    private final WatchService service;
+    private final List<Path> fileNames;
+    private final Runnable onChange;
+    private final Thread thread;
+
+    /**
+     * Creates and starts a watcher.
+     *
+     * @param directory Directory holding the files (must exist).
+     * @param fileNames Names (relative to {@code directory}) of the files to watch.
+     * @param onChange  Called on the watcher thread after any of the files was created, changed or deleted.
+     * @throws IOException If the directory cannot be watched.
+     */
+    StorageWatcher(Path directory, List<Path> fileNames, Runnable onChange) throws IOException {
+        assert onChange != null : "onChange should not be null";
+        this.service = directory.getFileSystem().newWatchService();
+        this.fileNames = fileNames;
+        this.onChange = onChange;
+        try {
+            directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            service.close();
+            throw e;
+        }
+        this.thread = new Thread(this::run, "valencia-storage-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Stops watching. A callback that is already running is allowed to finish.
+     */
+    void close() {
+        try {
+            service.close();
+        } catch (IOException e) {
+            // the watcher thread stops either way
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean isRelevant = false;
+                for (WatchKey key = service.take(); key != null; key = service.poll()) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        isRelevant |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                                || fileNames.contains(event.context());
+                    }
+                    if (!key.reset()) {
+                        return; // the directory is gone
+                    }
+                }
+                if (isRelevant) {
+                    onChange.run();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }
+    }
+}
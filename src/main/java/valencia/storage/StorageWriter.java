@@ -0,0 +1,228 @@
+package valencia.storage;
+
+/**
+ * Background writer used by {@link Storage} in write-behind mode.
+ * Callers hand over already-serialized data and return immediately; the writer thread
+ * coalesces everything submitted within {@code maxDelayMillis} of the first pending change
+ * and commits it to disk as one batch.
+ *
+ * <p>A newer snapshot supersedes any pending snapshot and journal records, so a burst of
+ * whole-file saves costs a single write. While idle, the writer also fsyncs writes that
+ * {@link Durability#PERIODIC} left unsynced once their interval is up.
+ *
+ * <p>When a command ends with changes still pending, the Storage hands its file lock over to the writer, which
+ * keeps it until the batch is committed and then releases it, even if the commit fails. Other processes wait at
+ * most one batch delay. A command that starts before that takes the lock back (see {@link #reclaimLock()}), so
+ * the changes of several commands still go to disk as one batch.
+ */
+class StorageWriter {
+    private final Storage storage;
+    private final long maxDelayMillis;
+    private final Thread thread;
+
+    private byte[] pendingSnapshot = null;
+    private StringBuilder pendingJournal = new StringBuilder();
+    private boolean isDirty = false;
+    private long dirtySince = 0;
+    private long submitted = 0;
+    private long committed = 0;
+    private int flushRequests = 0;
+    private boolean isCommitting = false;
+    private boolean isUnlockPending = false;
+    private boolean isStopped = false;
+    private boolean isFinished = false;
+
+    /**
+     * Creates and starts a writer that commits through the given Storage.
+     *
+     * @param storage        Storage whose {@code commit} method performs the actual IO.
+     * @param maxDelayMillis Maximum time a change may wait before it is written.
+     */
+    StorageWriter(Storage storage, long maxDelayMillis) {
+        assert storage != null : "storage should not be null";
+        assert maxDelayMillis >= 0 : "maxDelayMillis should not be negative";
+        this.storage = storage;
+        this.maxDelayMillis = maxDelayMillis;
+        this.thread = new Thread(this::run, "valencia-storage-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a full snapshot, replacing anything still pending.
+     */
+    synchronized void submitSnapshot(byte[] snapshot) {
+        assert snapshot != null : "snapshot should not be null";
+        pendingSnapshot = snapshot;
+        pendingJournal = new StringBuilder();
+        markDirty();
+    }
+
+    /**
+     * Queues journal records to be appended after any pending snapshot.
+     */
+    synchronized void submitJournal(String records) {
+        assert records != null : "records should not be null";
+        pendingJournal.append(records);
+        markDirty();
+    }
+
+    private void markDirty() {
+        assert !isStopped : "writer should not receive data after it is stopped";
+        submitted++;
+        if (!isDirty) {
+            isDirty = true;
+            dirtySince = System.currentTimeMillis();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Hands the Storage's file lock to the writer, to be released once the changes pending now are committed.
+     *
+     * @return False if nothing is pending (or the writer has stopped), in which case the caller keeps the lock.
+     */
+    synchronized boolean submitUnlock() {
+        assert !isUnlockPending : "lock should only be handed over once";
+        if ((!isDirty && !isCommitting) || isFinished) {
+            return false;
+        }
+        isUnlockPending = true;
+        return true;
+    }
+
+    /**
+     * Takes back the file lock handed over by {@link #submitUnlock()} if the writer has not released it yet.
+     *
+     * @return True if the caller holds the lock again; false if it was already released.
+     */
+    synchronized boolean reclaimLock() {
+        if (!isUnlockPending) {
+            return false;
+        }
+        isUnlockPending = false;
+        return true;
+    }
+
+    /**
+     * Blocks until everything submitted so far has been committed.
+     */
+    synchronized void flush() {
+        long target = submitted;
+        flushRequests++;
+        notifyAll();
+        try {
+            while (committed < target && !isFinished) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            flushRequests--;
+        }
+    }
+
+    /**
+     * Commits everything pending and stops the writer thread.
+     */
+    void close() {
+        synchronized (this) {
+            isStopped = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (commitNextBatch()) {
+                // keep committing until stopped
+            }
+        } finally {
+            // a writer that stops, even by failing, must not keep other processes locked out
+            finish();
+        }
+    }
+
+    /**
+     * Waits for the next batch and commits it.
+     *
+     * @return False once the writer is stopped and nothing is left to commit.
+     */
+    private boolean commitNextBatch() {
+        byte[] snapshot;
+        String journal;
+        long target;
+
+        long syncDelay = storage.syncIfDue();
+        synchronized (this) {
+            try {
+                if (!isDirty && !isStopped) {
+                    // wait for changes, or until unsynced writes are due to be fsync-ed (wait(0) has no timeout)
+                    wait(syncDelay);
+                    if (!isDirty && !isStopped) {
+                        return true;
+                    }
+                }
+                long remaining = dirtySince + maxDelayMillis - System.currentTimeMillis();
+                while (remaining > 0 && flushRequests == 0 && !isStopped) {
+                    wait(remaining);
+                    remaining = dirtySince + maxDelayMillis - System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                isStopped = true;
+            }
+
+            if (!isDirty) {
+                assert isStopped : "writer should only wake up idle when stopping";
+                notifyAll();
+                return false;
+            }
+
+            snapshot = pendingSnapshot;
+            journal = pendingJournal.toString();
+            pendingSnapshot = null;
+            pendingJournal = new StringBuilder();
+            isDirty = false;
+            isCommitting = true;
+            target = submitted;
+        }
+
+        try {
+            storage.commit(snapshot, journal.isEmpty() ? null : journal);
+        } finally {
+            boolean shouldUnlock;
+            synchronized (this) {
+                isCommitting = false;
+                committed = target;
+                // changes submitted during the commit were made under the lock too, so it waits for them
+                shouldUnlock = isUnlockPending && !isDirty;
+                if (shouldUnlock) {
+                    isUnlockPending = false;
+                }
+                notifyAll();
+            }
+            if (shouldUnlock) {
+                storage.releaseLock();
+            }
+        }
+        return true;
+    }
+
+    private void finish() {
+        boolean shouldUnlock;
+        synchronized (this) {
+            isFinished = true;
+            shouldUnlock = isUnlockPending;
+            isUnlockPending = false;
+            notifyAll();
+        }
+        if (shouldUnlock) {
+            storage.releaseLock();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package valencia.storage;
+
+import valencia.task.Task;
+
+/**
+ * One change that another process made to the stored tasks, as applied to this process's TaskList
+ * by {@link StorageBackend#beginUpdate}. The task is identified by its ID.
+ */
+public class TaskChange {
+    /** What happened to the task. */
+    public enum Kind {
+        ADDED,
+        UPDATED,
+        REMOVED
+    }
+
+    private final Kind kind;
+    private final Task task;
+
+    TaskChange(Kind kind, Task task) {
+        assert kind != null : "kind should not be null";
+        assert task != null : "changed task should not be null";
+        this.kind = kind;
+        this.task = task;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the task after the change, or the removed task for {@link Kind#REMOVED}.
+     *
+     * @return The changed task.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    @Override
+    public String toString() {
+        return kind.name().toLowerCase() + " #" + task.getId() + " " + task;
+    }
+}
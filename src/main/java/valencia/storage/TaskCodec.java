@@ -0,0 +1,329 @@
+package valencia.storage;
+
+import java.time.LocalDate;
+
+import valencia.task.DateParser;
+import valencia.task.Deadline;
+import valencia.task.Event;
+import valencia.task.Task;
+import valencia.task.Todo;
+
+/**
+ * Converts tasks to and from the line format used by the data file:
+ * {@code #ID | TYPE | DONE | DESC | (extra fields...)}.
+ * The ID field is written for every task that has an ID; lines without one (written before IDs existed)
+ * decode to a task without an ID, which gets one when it is added to a TaskList.
+ *
+ * <p>Decoding is a single pass over the line with no regex and no exceptions: whitespace around each
+ * {@code |} is dropped exactly like {@code line.split("\\s*\\|\\s*")} would, and an invalid line simply
+ * decodes to null. Encoding appends straight into a caller-supplied buffer so it can be reused across lines.
+ *
+ * <p>Lines written by {@link #encodeLine} end with a CRC32C checksum field (see {@link RecordChecksum}); a line
+ * whose checksum does not match decodes to null. Whether a line without one is decoded or rejected is chosen
+ * when the codec is created: data files from before checksums have none, newer ones must have one on every line.
+ *
+ * <p>A codec keeps scratch state between calls, so each thread should use its own instance.
+ */
+public class TaskCodec {
+    private static final int MAX_FIELDS = 5;
+    static final char ID_MARKER = '#';
+    private static final String SEPARATOR = " | ";
+
+    private final int[] fieldStart = new int[MAX_FIELDS];
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+    private final RecordChecksum checksum = new RecordChecksum();
+    private final boolean isChecksumRequired;
+
+    /**
+     * Creates a codec that decodes lines with or without a checksum.
+     */
+    public TaskCodec() {
+        this(false);
+    }
+
+    /**
+     * Creates a codec.
+     *
+     * @param isChecksumRequired Whether lines without a checksum field decode to null.
+     */
+    public TaskCodec(boolean isChecksumRequired) {
+        this.isChecksumRequired = isChecksumRequired;
+    }
+
+    /**
+     * Decodes a whole line into a Task.
+     *
+     * @param line One line from the data file, without its line separator.
+     * @return Decoded Task, or null if the line is invalid.
+     */
+    public Task decode(CharSequence line) {
+        assert line != null : "line to decode should not be null";
+        return decode(line, 0, line.length());
+    }
+
+    /**
+     * Decodes the characters in {@code [start, end)} of {@code text} into a Task.
+     *
+     * @param text  Text containing the line.
+     * @param start Index of the first character of the line.
+     * @param end   Index just past the last character of the line.
+     * @return Decoded Task, or null if the line is invalid or fails its checksum.
+     */
+    public Task decode(CharSequence text, int start, int end) {
+        assert text != null : "text to decode should not be null";
+        assert start >= 0 && start <= end && end <= text.length() : "line bounds out of range";
+
+        int contentEnd = checksum.verify(text, start, end, isChecksumRequired);
+        if (contentEnd < 0) {
+            return null;
+        }
+        int id = 0;
+        int bodyStart = start;
+        if (start < contentEnd && text.charAt(start) == ID_MARKER) {
+            int separator = start + 1;
+            while (separator < contentEnd && text.charAt(separator) != '|') {
+                separator++;
+            }
+            id = parseId(text, start + 1, separator);
+            if (id <= 0 || separator == contentEnd) {
+                return null;
+            }
+            bodyStart = separator + 1;
+            while (bodyStart < contentEnd && isSplitWhitespace(text.charAt(bodyStart))) {
+                bodyStart++;
+            }
+        }
+
+        int fields = tokenize(text, bodyStart, contentEnd);
+        if (fields < 3 || fieldEnd[0] - fieldStart[0] != 1) {
+            return null;
+        }
+
+        boolean isDone = fieldEnd[1] - fieldStart[1] == 1 && text.charAt(fieldStart[1]) == '1';
+        String desc = text.subSequence(fieldStart[2], fieldEnd[2]).toString();
+        if (desc.isBlank()) {
+            return null;
+        }
+
+        Task t;
+        switch (text.charAt(fieldStart[0])) {
+        case 'T':
+            t = new Todo(desc);
+            break;
+        case 'D':
+            if (fields < 4) {
+                return null;
+            }
+            LocalDate by = DateParser.parseDate(text, fieldStart[3], fieldEnd[3]);
+            if (by == null) {
+                return null;
+            }
+            t = new Deadline(desc, by);
+            break;
+        case 'E':
+            if (fields < 5) {
+                return null;
+            }
+            t = new Event(desc, text.subSequence(fieldStart[3], fieldEnd[3]).toString(),
+                    text.subSequence(fieldStart[4], fieldEnd[4]).toString());
+            break;
+        default:
+            return null;
+        }
+
+        if (isDone) {
+            t.markDone();
+        }
+        if (id > 0) {
+            t.setId(id);
+        }
+        return t;
+    }
+
+    /**
+     * Parses a positive decimal ID in {@code [start, end)} (trailing whitespace allowed).
+     *
+     * @return The ID, or -1 if the text is not a valid ID.
+     */
+    static int parseId(CharSequence text, int start, int end) {
+        while (end > start && isSplitWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end || end - start > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Splits {@code [start, end)} into fields, recording at most {@link #MAX_FIELDS} of them.
+     * Mirrors {@code String.split("\\s*\\|\\s*")}: whitespace next to a separator belongs to the separator,
+     * and trailing empty fields are dropped.
+     *
+     * @return Number of fields found (capped at {@link #MAX_FIELDS}).
+     */
+    private int tokenize(CharSequence text, int start, int end) {
+        int count = 0;
+        int tokenStart = start;
+        int i = start;
+        while (i < end && count < MAX_FIELDS) {
+            if (text.charAt(i) != '|') {
+                i++;
+                continue;
+            }
+            int tokenEnd = i;
+            while (tokenEnd > tokenStart && isSplitWhitespace(text.charAt(tokenEnd - 1))) {
+                tokenEnd--;
+            }
+            fieldStart[count] = tokenStart;
+            fieldEnd[count] = tokenEnd;
+            count++;
+
+            i++;
+            while (i < end && isSplitWhitespace(text.charAt(i))) {
+                i++;
+            }
+            tokenStart = i;
+        }
+
+        if (count < MAX_FIELDS) {
+            fieldStart[count] = tokenStart;
+            fieldEnd[count] = end;
+            count++;
+        } else if (!isOnlySeparators(text, tokenStart, end)) {
+            // fields past the cap are not empty, so split would not drop any recorded field
+            return count;
+        }
+
+        while (count > 0 && fieldStart[count - 1] == fieldEnd[count - 1]) {
+            count--;
+        }
+        return count;
+    }
+
+    /**
+     * Returns true if {@code [from, end)} only holds separators and whitespace, i.e. every field in it is empty.
+     */
+    private static boolean isOnlySeparators(CharSequence text, int from, int end) {
+        for (int i = from; i < end; i++) {
+            char c = text.charAt(i);
+            if (c != '|' && !isSplitWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true for the characters matched by the regex class {@code \s}.
+     */
+    static boolean isSplitWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Verifies the checksum of an arbitrary record line {@code [start, end)}, such as a journal record.
+     * A line without a checksum fails, whatever the codec was created with.
+     *
+     * @return Index where the record content ends (before the checksum field), or -1 if the checksum
+     *     is missing or does not match.
+     */
+    public int verify(CharSequence text, int start, int end) {
+        return checksum.verify(text, start, end, true);
+    }
+
+    /**
+     * Appends a checksum field covering the record that starts at {@code lineStart} in {@code out}.
+     *
+     * @param out       Buffer holding the record.
+     * @param lineStart Index in {@code out} where the record starts.
+     * @return The same buffer, for chaining.
+     */
+    public StringBuilder appendChecksum(StringBuilder out, int lineStart) {
+        checksum.append(out, lineStart);
+        return out;
+    }
+
+    /**
+     * Appends the full line form of a task, checksum included (without a line separator), to {@code out}.
+     *
+     * @param task Task to encode.
+     * @param out  Buffer to append to.
+     * @return The same buffer, for chaining.
+     */
+    public StringBuilder encodeLine(Task task, StringBuilder out) {
+        int lineStart = out.length();
+        encode(task, out);
+        return appendChecksum(out, lineStart);
+    }
+
+    /**
+     * Appends the line form of a task, starting with its ID if it has one (without a checksum or line separator),
+     * to {@code out}.
+     *
+     * @param task Task to encode.
+     * @param out  Buffer to append to.
+     * @return The same buffer, for chaining.
+     */
+    public StringBuilder encode(Task task, StringBuilder out) {
+        assert task != null : "task to encode should not be null";
+        assert task.getDescription() != null : "task description should not be null";
+
+        if (task.getId() > 0) {
+            out.append(ID_MARKER).append(task.getId()).append(SEPARATOR);
+        }
+        char type = task.getTypeCode();
+        out.append(type).append(SEPARATOR)
+                .append(task.isDone() ? '1' : '0').append(SEPARATOR)
+                .append(task.getDescription());
+
+        switch (type) {
+        case 'D':
+            Deadline d = (Deadline) task;
+            assert d.getBy() != null : "deadline by-date should not be null";
+            out.append(SEPARATOR);
+            appendDate(d.getBy(), out);
+            break;
+        case 'E':
+            Event e = (Event) task;
+            assert e.getFrom() != null : "event from should not be null";
+            assert e.getTo() != null : "event to should not be null";
+            out.append(SEPARATOR).append(e.getFrom()).append(SEPARATOR).append(e.getTo());
+            break;
+        default:
+            break;
+        }
+        return out;
+    }
+
+    /**
+     * Appends a date exactly as {@link LocalDate#toString()} would, without the intermediate String.
+     */
+    static void appendDate(LocalDate date, StringBuilder out) {
+        int year = date.getYear();
+        if (year < 1000 || year > 9999) {
+            out.append(date);
+            return;
+        }
+        out.append(year).append('-');
+        appendTwoDigits(date.getMonthValue(), out);
+        out.append('-');
+        appendTwoDigits(date.getDayOfMonth(), out);
+    }
+
+    private static void appendTwoDigits(int value, StringBuilder out) {
+        out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+}
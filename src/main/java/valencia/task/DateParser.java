@@ -0,0 +1,120 @@
+package valencia.task;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Parses the date and time forms used by tasks and their data files without throwing: text that is not in the
+ * expected form simply parses to null. Event times are free text, so most of them are not dates at all, and
+ * catching an exception for each one would cost more than the parse.
+ */
+public final class DateParser {
+    private static final int DATE_LENGTH = 10;
+    private static final int TIME_LENGTH = 4;
+
+    private DateParser() {
+    }
+
+    /**
+     * Parses an ISO date ({@code yyyy-MM-dd}, or a signed year of more digits), like {@link LocalDate#parse}.
+     *
+     * @param text  Text containing the date.
+     * @param start Index of the first character of the date.
+     * @param end   Index just past the last character of the date.
+     * @return The date, or null if the text is not a valid date.
+     */
+    public static LocalDate parseDate(CharSequence text, int start, int end) {
+        int i = start;
+        boolean isNegative = false;
+        boolean isSigned = false;
+        if (i < end && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+            // like LocalDate.parse, '+' is only allowed (and then required) for years past 9999
+            isNegative = text.charAt(i) == '-';
+            isSigned = true;
+            i++;
+        }
+
+        int yearStart = i;
+        long year = 0;
+        while (i < end && isDigit(text.charAt(i))) {
+            year = year * 10 + (text.charAt(i) - '0');
+            i++;
+            if (i - yearStart > 9) {
+                return null;
+            }
+        }
+        int yearDigits = i - yearStart;
+        if (yearDigits < 4 || !isNegative && isSigned != yearDigits > 4) {
+            return null;
+        }
+        if (isNegative) {
+            year = -year;
+        }
+
+        if (end - i != 6 || text.charAt(i) != '-' || text.charAt(i + 3) != '-') {
+            return null;
+        }
+        int month = twoDigits(text, i + 1);
+        int day = twoDigits(text, i + 4);
+        if (month < 1 || month > 12 || day < 1 || year < LocalDate.MIN.getYear() || year > LocalDate.MAX.getYear()) {
+            return null;
+        }
+
+        LocalDate firstOfMonth = LocalDate.of((int) year, month, 1);
+        if (day > firstOfMonth.lengthOfMonth()) {
+            return null;
+        }
+        return firstOfMonth.withDayOfMonth(day);
+    }
+
+    /**
+     * Parses a time of the form {@code HHmm} (e.g. "1400").
+     *
+     * @param text  Text containing the time.
+     * @param start Index of the first character of the time.
+     * @param end   Index just past the last character of the time.
+     * @return The time, or null if the text is not a valid time.
+     */
+    public static LocalTime parseTime(CharSequence text, int start, int end) {
+        if (end - start != TIME_LENGTH) {
+            return null;
+        }
+        int hour = twoDigits(text, start);
+        int minute = twoDigits(text, start + 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+        return LocalTime.of(hour, minute);
+    }
+
+    /**
+     * Parses a date and time of the form {@code yyyy-MM-dd HHmm} (e.g. "2026-02-03 1400").
+     *
+     * @param text  Text containing the date and time.
+     * @param start Index of the first character of the date.
+     * @param end   Index just past the last character of the time.
+     * @return The date and time, or null if the text is not a valid date and time.
+     */
+    public static LocalDateTime parseDateTime(CharSequence text, int start, int end) {
+        if (end - start != DATE_LENGTH + 1 + TIME_LENGTH || text.charAt(start + DATE_LENGTH) != ' ') {
+            return null;
+        }
+        LocalDate date = parseDate(text, start, start + DATE_LENGTH);
+        LocalTime time = parseTime(text, start + DATE_LENGTH + 1, end);
+        return date == null || time == null ? null : date.atTime(time);
+    }
+
+    private static int twoDigits(CharSequence text, int at) {
+        char tens = text.charAt(at);
+        char ones = text.charAt(at + 1);
+        if (!isDigit(tens) || !isDigit(ones)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -34,14 +34,19 @@ public class Deadline extends Task {
         return by;
     }
 
-    /**
-     * Returns the string representation of a deadline task.
-     *
-     * @return Formatted deadline string.
-     */
     @Override
-    public String toString() {
-        return String.format("[D] %s (by: %s)", super.toString(), by.format(output));
+    protected String getTag() {
+        return "[D] ";
+    }
+
+    @Override
+    protected String getDetails() {
+        return " (by: " + by.format(output) + ")";
+    }
+
+    @Override
+    public char getTypeCode() {
+        return 'D';
     }
 
     @Override
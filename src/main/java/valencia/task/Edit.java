@@ -0,0 +1,66 @@
+package valencia.task;
+
+/**
+ * One change to a single task made by a command: adding, removing, marking or unmarking it.
+ * Edits are what {@link History} keeps, and each one knows how to describe its own reversal.
+ */
+public class Edit {
+    /** What the edit does to its task. */
+    public enum Kind {
+        ADD,
+        REMOVE,
+        MARK,
+        UNMARK
+    }
+
+    private final Kind kind;
+    private final Task task;
+
+    /**
+     * Creates an edit.
+     *
+     * @param kind What the edit does.
+     * @param task The task it applies to. Tasks that are removed keep their ID, so adding them back
+     *             puts them in their old place.
+     */
+    public Edit(Kind kind, Task task) {
+        assert kind != null : "kind should not be null";
+        assert task != null : "edited task should not be null";
+        this.kind = kind;
+        this.task = task;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Returns the edit that undoes this one.
+     *
+     * @return The reverse edit on the same task.
+     */
+    public Edit inverse() {
+        switch (kind) {
+        case ADD:
+            return new Edit(Kind.REMOVE, task);
+        case REMOVE:
+            return new Edit(Kind.ADD, task);
+        case MARK:
+            return new Edit(Kind.UNMARK, task);
+        case UNMARK:
+            return new Edit(Kind.MARK, task);
+        default:
+            throw new AssertionError("unknown edit kind: " + kind);
+        }
+    }
+
+    @Override
+    public String toString() {
+        String verb = kind == Kind.ADD ? "added" : kind == Kind.REMOVE ? "removed" : kind.name().toLowerCase() + "ed";
+        return verb + " #" + task.getId() + " " + task;
+    }
+}
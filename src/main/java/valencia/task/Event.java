@@ -2,28 +2,69 @@ package valencia.task;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.LocalTime;
 import java.util.Optional;
 
 /**
  * Represents an event task with a start time and end time.
+ *
+ * <p>The times are kept as typed, exactly as entered, for display and saving. They are also parsed once,
+ * when the event is created, into a start and end {@link LocalDateTime} where possible. Most typed times are
+ * free text (e.g. "Mon 2pm"), so they are parsed with {@link DateParser}, which does not throw.
  */
 public class Event extends Task {
-    private String from;
-    private String to;
+    private final String from;
+    private final String to;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
 
     /**
      * Creates an Event task.
      *
      * @param description Description of the event.
-     * @param from        Start time/date string.
-     * @param to          End time/date string.
+     * @param from        Start time/date string (e.g. "2026-02-03 1400" or "2026-02-03").
+     * @param to          End time/date string (e.g. "2026-02-03 1600", "2026-02-04" or just "1600").
      */
     public Event(String description, String from, String to) {
         super(description);
         this.from = from;
         this.to = to;
+        this.start = parseStart(from);
+        this.end = start == null ? null : parseEnd(to, start);
+    }
+
+    /**
+     * Parses "yyyy-MM-dd HHmm" or "yyyy-MM-dd" (start of that day).
+     *
+     * @return The start time, or null if the text is in neither form.
+     */
+    private static LocalDateTime parseStart(String text) {
+        String s = text.trim();
+        LocalDateTime dateTime = DateParser.parseDateTime(s, 0, s.length());
+        if (dateTime != null) {
+            return dateTime;
+        }
+        LocalDate date = DateParser.parseDate(s, 0, s.length());
+        return date == null ? null : date.atStartOfDay();
+    }
+
+    /**
+     * Parses "yyyy-MM-dd HHmm", "yyyy-MM-dd" (end of that day) or "HHmm" (on the start's day).
+     *
+     * @return The end time, or null if the text is in none of these forms or ends before the start.
+     */
+    private static LocalDateTime parseEnd(String text, LocalDateTime start) {
+        String s = text.trim();
+        LocalDateTime end = DateParser.parseDateTime(s, 0, s.length());
+        if (end == null) {
+            LocalDate date = DateParser.parseDate(s, 0, s.length());
+            end = date == null ? null : date.atTime(LocalTime.MAX);
+        }
+        if (end == null) {
+            LocalTime time = DateParser.parseTime(s, 0, s.length());
+            end = time == null ? null : start.toLocalDate().atTime(time);
+        }
+        return end == null || end.isBefore(start) ? null : end;
     }
 
     /**
@@ -45,28 +86,41 @@ public class Event extends Task {
     }
 
     /**
-     * Returns the string representation of an event task.
+     * Returns the parsed start time, if the start was given as a date or date and time.
      *
-     * @return Formatted event string.
+     * @return Start time, or empty if it could not be parsed.
      */
+    public Optional<LocalDateTime> getStart() {
+        return Optional.ofNullable(start);
+    }
+
+    /**
+     * Returns the parsed end time, if both the start and the end could be parsed and the end is not earlier.
+     * An end given as a date only means the end of that day; a time only means that time on the start's day.
+     *
+     * @return End time, or empty if it could not be parsed.
+     */
+    public Optional<LocalDateTime> getEnd() {
+        return Optional.ofNullable(end);
+    }
+
     @Override
-    public String toString() {
-        return String.format("[E] %s (from: %s to: %s)", super.toString(), this.from, this.to);
+    protected String getTag() {
+        return "[E] ";
     }
 
     @Override
-    public Optional<LocalDateTime> getReminderDateTime() {
-        try {
-            return Optional.of(LocalDateTime.parse(from,
-                    DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm")));
-        } catch (DateTimeParseException ignored) {
-            // try date-only
-        }
+    protected String getDetails() {
+        return " (from: " + from + " to: " + to + ")";
+    }
 
-        try {
-            return Optional.of(LocalDate.parse(from).atStartOfDay());
-        } catch (DateTimeParseException e) {
-            return Optional.empty();
-        }
+    @Override
+    public char getTypeCode() {
+        return 'E';
+    }
+
+    @Override
+    public Optional<LocalDateTime> getReminderDateTime() {
+        return getStart();
     }
 }
@@ -0,0 +1,188 @@
+package valencia.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Interval tree over the events whose start and end could be parsed, kept up to date by {@link TaskList}
+ * as tasks are added and removed.
+ *
+ * <p>It is an AVL tree ordered by start time (then ID), where every node also records the latest end time in
+ * its subtree. An overlap query skips every subtree that ends before the query starts or starts after it ends,
+ * so it takes O(log n + k) for k results and returns them in start order.
+ *
+ * <p>Each event covers {@code [start, end)}: one event ending at 1500 does not overlap another starting at 1500.
+ */
+class EventIndex {
+    private Node root = null;
+
+    private static class Node {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final int id;
+        private LocalDateTime maxEnd;
+        private int height = 1;
+        private Node left = null;
+        private Node right = null;
+
+        Node(LocalDateTime start, LocalDateTime end, int id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+    }
+
+    /**
+     * Indexes a task that was just added. Tasks that are not events with a parsed start and end are ignored.
+     *
+     * @param task Task to index (must already have its ID).
+     */
+    void add(Task task) {
+        assert task.getId() > 0 : "indexed task should have an id";
+        if (!(task instanceof Event)) {
+            return;
+        }
+        Event event = (Event) task;
+        if (event.getStart().isPresent() && event.getEnd().isPresent()) {
+            root = insert(root, new Node(event.getStart().get(), event.getEnd().get(), event.getId()));
+        }
+    }
+
+    /**
+     * Drops a task that was removed from the list.
+     *
+     * @param task Task to drop.
+     */
+    void remove(Task task) {
+        if (task instanceof Event && ((Event) task).getStart().isPresent() && ((Event) task).getEnd().isPresent()) {
+            root = delete(root, ((Event) task).getStart().get(), task.getId());
+        }
+    }
+
+    void clear() {
+        root = null;
+    }
+
+    /**
+     * Returns the IDs of the indexed events that overlap {@code [from, to)}, in start order.
+     *
+     * @param from Start of the range (inclusive).
+     * @param to   End of the range (exclusive).
+     * @return IDs of the overlapping events.
+     */
+    List<Integer> findOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<Integer> ids = new ArrayList<>();
+        collect(root, from, to, ids);
+        return ids;
+    }
+
+    private static void collect(Node node, LocalDateTime from, LocalDateTime to, List<Integer> ids) {
+        if (node == null || !node.maxEnd.isAfter(from)) {
+            return; // everything in this subtree ends before the range
+        }
+        collect(node.left, from, to, ids);
+        if (!node.start.isBefore(to)) {
+            return; // this node and everything to its right start after the range
+        }
+        if (node.end.isAfter(from)) {
+            ids.add(node.id);
+        }
+        collect(node.right, from, to, ids);
+    }
+
+    private static int compare(LocalDateTime start, int id, Node node) {
+        int byStart = start.compareTo(node.start);
+        return byStart != 0 ? byStart : Integer.compare(id, node.id);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private static Node delete(Node node, LocalDateTime start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else {
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            Node replacement = new Node(successor.start, successor.end, successor.id);
+            replacement.left = node.left;
+            replacement.right = delete(node.right, successor.start, successor.id);
+            return rebalance(replacement);
+        }
+        return rebalance(node);
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(node.maxEnd)) {
+            node.maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(node.maxEnd)) {
+            node.maxEnd = node.right.maxEnd;
+        }
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+}
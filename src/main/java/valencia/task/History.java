@@ -0,0 +1,79 @@
+package valencia.task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Undo and redo history of the commands that changed the task list.
+ *
+ * <p>Each step holds only the {@link Edit}s one command made, not a copy of the list, so the memory used
+ * grows with the number of changes rather than with the size of the list, and undoing or redoing a step
+ * costs the same however long the list is. Only the most recent steps (up to a limit) are kept.
+ */
+public class History {
+    private final int limit;
+    private final Deque<List<Edit>> undoSteps = new ArrayDeque<>();
+    private final Deque<List<Edit>> redoSteps = new ArrayDeque<>();
+
+    /**
+     * Creates an empty history.
+     *
+     * @param limit Number of steps to keep (must be positive).
+     */
+    public History(int limit) {
+        assert limit > 0 : "history limit should be positive";
+        this.limit = limit;
+    }
+
+    /**
+     * Records the edits of one command as a single step, forgetting anything that could be redone.
+     * An empty step is ignored.
+     *
+     * @param edits Edits in the order they were made.
+     */
+    public void record(List<Edit> edits) {
+        if (edits.isEmpty()) {
+            return;
+        }
+        undoSteps.push(List.copyOf(edits));
+        if (undoSteps.size() > limit) {
+            undoSteps.removeLast();
+        }
+        redoSteps.clear();
+    }
+
+    /**
+     * Takes the most recent step off the history and makes it available to {@link #redo()}.
+     *
+     * @return The edits that undo it, in the order to apply them, or empty if there is nothing to undo.
+     */
+    public Optional<List<Edit>> undo() {
+        List<Edit> step = undoSteps.poll();
+        if (step == null) {
+            return Optional.empty();
+        }
+        redoSteps.push(step);
+        List<Edit> inverse = new ArrayList<>(step.size());
+        for (int i = step.size() - 1; i >= 0; i--) {
+            inverse.add(step.get(i).inverse());
+        }
+        return Optional.of(inverse);
+    }
+
+    /**
+     * Takes the most recently undone step and puts it back on the history.
+     *
+     * @return The edits to apply again, in order, or empty if there is nothing to redo.
+     */
+    public Optional<List<Edit>> redo() {
+        List<Edit> step = redoSteps.poll();
+        if (step == null) {
+            return Optional.empty();
+        }
+        undoSteps.push(step);
+        return Optional.of(step);
+    }
+}
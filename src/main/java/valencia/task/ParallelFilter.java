@@ -0,0 +1,81 @@
+package valencia.task;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+/**
+ * Finds which positions in {@code [0, size)} satisfy a test, splitting large ranges across the common fork-join
+ * pool and running small ones on the calling thread. The results of the ranges are concatenated in order, so
+ * the positions come back sorted exactly as a sequential loop would return them.
+ *
+ * <p>The test runs on several threads at once, so it may only read shared state, and that state must not change
+ * until the filter returns (e.g. the caller holds the {@link TaskList}'s read lock).
+ */
+class ParallelFilter {
+    /** Ranges with fewer positions than this are tested on one thread; splitting them costs more than it saves. */
+    static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    private ParallelFilter() {
+    }
+
+    /**
+     * Returns the positions that pass the test.
+     *
+     * @param size Number of positions.
+     * @param test Test of one position; must be safe to call from several threads.
+     * @return Passing positions, in increasing order.
+     */
+    static int[] filter(int size, IntPredicate test) {
+        assert size >= 0 : "size should not be negative";
+        if (size < SEQUENTIAL_THRESHOLD) {
+            return filterRange(0, size, test);
+        }
+        return ForkJoinPool.commonPool().invoke(new RangeTask(0, size, test));
+    }
+
+    private static int[] filterRange(int from, int to, IntPredicate test) {
+        int[] passed = new int[Math.min(to - from, 16)];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (test.test(i)) {
+                if (count == passed.length) {
+                    passed = Arrays.copyOf(passed, Math.min(to - from, count * 2));
+                }
+                passed[count++] = i;
+            }
+        }
+        return count == passed.length ? passed : Arrays.copyOf(passed, count);
+    }
+
+    private static class RangeTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntPredicate test;
+
+        RangeTask(int from, int to, IntPredicate test) {
+            this.from = from;
+            this.to = to;
+            this.test = test;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from < SEQUENTIAL_THRESHOLD) {
+                return filterRange(from, to, test);
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(from, mid, test);
+            RangeTask right = new RangeTask(mid, to, test);
+            right.fork();
+            int[] first = left.compute();
+            int[] second = right.join();
+            int[] both = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, both, first.length, second.length);
+            return both;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package valencia.task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Index of the tasks that have a reminder time, ordered by that time and kept up to date by {@link TaskList}
+ * as tasks are added and removed. Tasks with the same time stay in list (ID) order.
+ *
+ * <p>A range query walks only the entries inside the range, so its cost depends on the number of results
+ * rather than on the number of tasks, and the results come out already sorted.
+ */
+class ReminderIndex {
+    private final TreeMap<LocalDateTime, Set<Integer>> byTime = new TreeMap<>();
+
+    /**
+     * Indexes a task that was just added to the list. Tasks without a reminder time are ignored.
+     *
+     * @param task Task to index (must already have its ID).
+     */
+    void add(Task task) {
+        assert task.getId() > 0 : "indexed task should have an id";
+        task.getReminderDateTime()
+                .ifPresent(time -> byTime.computeIfAbsent(time, t -> new TreeSet<>()).add(task.getId()));
+    }
+
+    /**
+     * Drops a task that was removed from the list.
+     *
+     * @param task Task to drop.
+     */
+    void remove(Task task) {
+        task.getReminderDateTime().ifPresent(time -> {
+            Set<Integer> ids = byTime.get(time);
+            if (ids != null && ids.remove(task.getId()) && ids.isEmpty()) {
+                byTime.remove(time);
+            }
+        });
+    }
+
+    void clear() {
+        byTime.clear();
+    }
+
+    /**
+     * Returns the IDs of the tasks whose reminder time lies in {@code [from, to]}, earliest first.
+     *
+     * @param from Start of the range (inclusive).
+     * @param to   End of the range (inclusive).
+     * @return Matching task IDs in time order.
+     */
+    List<Integer> findBetween(LocalDateTime from, LocalDateTime to) {
+        List<Integer> ids = new ArrayList<>();
+        if (to.isBefore(from)) {
+            return ids;
+        }
+        for (Set<Integer> sameTime : byTime.subMap(from, true, to, true).values()) {
+            ids.addAll(sameTime);
+        }
+        return ids;
+    }
+}
@@ -6,10 +6,18 @@ import java.util.Optional;
 /**
  * Represents a generic task with a description and a completion status.
  * Other task types (Todo/Deadline/Event) extend this.
+ *
+ * <p>The string form is built once per done state from a tag, the status, the description and any details,
+ * and then reused, so listing the same tasks again does not format them again. Marking or unmarking a task
+ * drops the form for the state it left.
  */
 public class Task {
     private final String description;
     private boolean isDone;
+    private int id = 0;
+    // each only ever holds the form for its own state, so a thread racing a mark can not leave a stale one
+    private String renderedDone = null;
+    private String renderedNotDone = null;
 
     /**
      * Creates a new task with the given description. New tasks are not done by default.
@@ -32,6 +40,27 @@ public class Task {
         return description;
     }
 
+    /**
+     * Returns the stable ID of the task, which stays the same while other tasks are added or removed
+     * and is saved with the task.
+     *
+     * @return Task ID, or 0 if the task was never added to a TaskList or loaded from storage.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of the task. Only meant for restoring a saved ID on load, and for {@link TaskList}
+     * handing out a new one when the task is first added.
+     *
+     * @param id Task ID (positive).
+     */
+    public void setId(int id) {
+        assert id > 0 : "task id should be positive";
+        this.id = id;
+    }
+
     /**
      * Checks if the task is marked as done.
      *
@@ -46,6 +75,7 @@ public class Task {
      */
     public void markDone() {
         this.isDone = true;
+        this.renderedNotDone = null;
         assert isDone : "isDone should be true after markDone";
     }
 
@@ -54,6 +84,7 @@ public class Task {
      */
     public void unmarkDone() {
         this.isDone = false;
+        this.renderedDone = null;
         assert !isDone : "isDone should be false after unmarkDone";
     }
 
@@ -68,14 +99,54 @@ public class Task {
     }
 
     /**
-     * Returns the string representation of a task (status + description).
+     * Returns the string representation of a task (type tag + status + description + details),
+     * e.g. "[D] [ ] return book (by: Feb 01 2026)".
      *
      * @return Formatted task string.
      */
     @Override
     public String toString() {
-        assert description != null : "description should never be null";
-        return checkDone() + " " + description;
+        if (isDone) {
+            String rendered = renderedDone;
+            if (rendered == null) {
+                rendered = getTag() + "[X] " + getDescription() + getDetails();
+                renderedDone = rendered;
+            }
+            return rendered;
+        }
+        String rendered = renderedNotDone;
+        if (rendered == null) {
+            rendered = getTag() + "[ ] " + getDescription() + getDetails();
+            renderedNotDone = rendered;
+        }
+        return rendered;
+    }
+
+    /**
+     * Returns the type tag shown before the status, e.g. "[T] ". Plain tasks have none.
+     *
+     * @return Tag including its trailing space, or an empty string.
+     */
+    protected String getTag() {
+        return "";
+    }
+
+    /**
+     * Returns the details shown after the description, e.g. " (by: Feb 01 2026)". Plain tasks have none.
+     *
+     * @return Details including their leading space, or an empty string.
+     */
+    protected String getDetails() {
+        return "";
+    }
+
+    /**
+     * Returns the single-letter code identifying this kind of task in saved files.
+     *
+     * @return 'T' for todos (and plain tasks), 'D' for deadlines, 'E' for events.
+     */
+    public char getTypeCode() {
+        return 'T';
     }
 
     /**
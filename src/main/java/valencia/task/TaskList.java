@@ -1,27 +1,96 @@
 package valencia.task;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Stores and manages a list of tasks.
+ *
+ * <p>Tasks are kept in a hash map from their ID, so looking up, marking or removing a task by ID takes
+ * constant time however long the list is. The list is always in ID order: new tasks get the next ID and go
+ * to the end, and a task re-added with its old ID (e.g. when a delete is undone) goes back to its old place.
+ * A sorted map keeps that order. Access by list position reads an array of the tasks in that order, which the
+ * first such access after a task was added or removed rebuilds, so it takes constant time between changes.
+ *
+ * <p>A {@link TrigramIndex} over the descriptions is kept alongside so that {@code find} does not have to scan
+ * every task, and a {@link ReminderIndex} so that {@code remind} only visits the tasks it returns. Events with a
+ * parsed start and end also go into an {@link EventIndex} for overlap queries. The trigram index is the costliest
+ * to build, so the first {@code find} (and the first after {@link #setAll}) only starts building it in the
+ * background, {@value #INDEX_CHUNK_SIZE} tasks at a time in ID order; until it covers the whole list, finds scan
+ * the descriptions instead. Loading a large list does not pay for it up front, and neither does the first find.
+ *
+ * <p>A TaskList may be shared between threads, e.g. the UI changing it while a background thread saves or
+ * searches it. Changes take a write lock, so there is one writer at a time. Reads take the shared read lock,
+ * so any number of them run together and always see the list as it was between two changes; a writer waits
+ * for the reads in progress. Tasks should only be changed through their TaskList for this to hold.
  */
 public class TaskList {
-    private final ArrayList<Task> tasks = new ArrayList<>();
+    /** Number of tasks {@link #writeList} reads at a time. */
+    static final int WRITE_CHUNK_SIZE = 256;
+    /** Number of tasks the background build adds to the trigram index per write lock. */
+    static final int INDEX_CHUNK_SIZE = 4096;
+    private static final DateTimeFormatter SLOT_TIME = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final StampedLock lock = new StampedLock();
+    private final HashMap<Integer, Task> tasks = new HashMap<>();
+    private final TreeMap<Integer, Task> ordered = new TreeMap<>();
+    private final TrigramIndex trigrams = new TrigramIndex();
+    private final ReminderIndex reminders = new ReminderIndex();
+    private final EventIndex events = new EventIndex();
+    // the tasks in list order, or null if a task was added or removed since it was last built
+    private volatile Task[] positions = null;
+    // written under the write lock; read without it so that find can skip the lock once the index exists
+    private volatile boolean isTextIndexed = false;
+    // tasks with an ID up to this one are in the trigram index; the background build indexes the rest
+    private int indexedThrough = 0;
+    // the background build in progress, or null if none was started since the list was last replaced
+    private volatile CompletableFuture<Void> textIndexing = null;
+    private int nextId = 1;
 
     /**
-     * Adds a task to the list.
+     * Adds a task to the list. A task without an ID (or whose ID is already taken) is given the next free one
+     * and goes to the end; a task that keeps its ID goes to its place in ID order.
      *
      * @param task Task to add.
      */
     public void add(Task task) {
         assert task != null : "task to add should not be null";
-        tasks.add(task);
-        assert tasks.contains(task) : "task should be present after add";
+        long stamp = lock.writeLock();
+        try {
+            addUnlocked(task);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void addUnlocked(Task task) {
+        if (task.getId() == 0 || tasks.containsKey(task.getId())) {
+            task.setId(nextId);
+        }
+        nextId = Math.max(nextId, task.getId() + 1);
+        tasks.put(task.getId(), task);
+        ordered.put(task.getId(), task);
+        positions = null;
+        if (task.getId() <= indexedThrough) {
+            trigrams.add(task);
+        }
+        reminders.add(task);
+        events.add(task);
+        assert tasks.get(task.getId()) == task : "task should be present after add";
     }
 
     /**
@@ -31,41 +100,151 @@ public class TaskList {
      * @return The task at the index.
      */
     public Task get(int index) {
+        return readLocked(() -> taskAt(index));
+    }
+
+    private Task taskAt(int index) {
         assert index >= 0 && index < tasks.size() : "index out of bounds: " + index;
-        Task task = tasks.get(index);
+        Task task = positions()[index];
         assert task != null : "stored task should not be null";
         return task;
     }
 
+    /**
+     * Returns the tasks in list order, rebuilding the array if the list changed since it was built.
+     * Must be called under the read or write lock; readers that rebuild it at the same time build equal arrays.
+     */
+    private Task[] positions() {
+        Task[] current = positions;
+        if (current == null) {
+            current = ordered.values().toArray(new Task[0]);
+            positions = current;
+        }
+        return current;
+    }
+
+    /**
+     * Gets the tasks at several positions as of one moment.
+     *
+     * @param indexes Indexes in the list (0-based), in increasing order and each within the list.
+     * @return The tasks at those indexes, in the same order.
+     */
+    public List<Task> getAt(List<Integer> indexes) {
+        assert indexes != null : "indexes should not be null";
+        return readLocked(() -> {
+            List<Task> found = new ArrayList<>(indexes.size());
+            int position = -1;
+            for (int index : indexes) {
+                assert index > position : "indexes should be increasing";
+                found.add(taskAt(index));
+                position = index;
+            }
+            return found;
+        });
+    }
+
+    /**
+     * Gets a task by its ID.
+     *
+     * @param id Task ID.
+     * @return The task, or null if no task in the list has that ID.
+     */
+    public Task getById(int id) {
+        return readLocked(() -> tasks.get(id));
+    }
+
     /**
      * Returns the number of tasks in the list.
      *
      * @return Task count.
      */
     public int size() {
-        assert tasks.size() >= 0 : "tasks size should never be negative";
-        return tasks.size();
+        return readLocked(tasks::size);
     }
 
     /**
-     * Prints all tasks with numbering to stdout.
+     * Prints all tasks with numbering to stdout, a chunk at a time (see {@link #writeList}).
      */
     public void printList() {
-        for (int i = 0; i < tasks.size(); i++) {
-            assert tasks.get(i) != null : "stored task should not be null";
-            System.out.println(String.format("%s. %s", i + 1, tasks.get(i)));
+        try {
+            writeList(System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
+    /**
+     * Writes all tasks with numbering to {@code out}, one line each, without building the whole list in memory.
+     * The tasks are read {@value #WRITE_CHUNK_SIZE} at a time and each chunk is written before the next is read,
+     * so only one chunk's lines are held at once and writers are never held up by a slow output. Each chunk is
+     * as the list was between two changes; a change made while the list is being written only shows in the
+     * chunks written after it.
+     *
+     * @param out Where to write the lines.
+     * @return Number of tasks written.
+     * @throws IOException If {@code out} fails.
+     */
+    public int writeList(Appendable out) throws IOException {
+        assert out != null : "output should not be null";
+        int written = 0;
+        int lastId = 0;
+        while (true) {
+            int afterId = lastId;
+            int firstNumber = written + 1;
+            StringBuilder chunk = new StringBuilder();
+            int[] last = readLocked(() -> {
+                int count = 0;
+                int id = afterId;
+                for (Task t : ordered.tailMap(afterId, false).values()) {
+                    if (count == WRITE_CHUNK_SIZE) {
+                        break;
+                    }
+                    appendNumbered(chunk, firstNumber + count, t);
+                    count++;
+                    id = t.getId();
+                }
+                return new int[] {count, id};
+            });
+            if (last[0] == 0) {
+                break;
+            }
+            out.append(chunk);
+            written += last[0];
+            lastId = last[1];
+        }
+        if (written == 0) {
+            out.append("(no tasks yet)\n");
+        }
+        return written;
+    }
+
     /**
      * Marks a task as done by index.
      *
      * @param index Index in the list (0-based).
      */
     public void markDone(int index) {
-        assert index >= 0 && index < tasks.size() : "index out of bounds: " + index;
-        assert tasks.get(index) != null : "stored task should not be null";
-        tasks.get(index).markDone();
+        long stamp = lock.writeLock();
+        try {
+            taskAt(index).markDone();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks a task as done by ID.
+     *
+     * @param id Task ID (must be in the list).
+     */
+    public void markDoneById(int id) {
+        long stamp = lock.writeLock();
+        try {
+            assert tasks.containsKey(id) : "no task with id " + id;
+            tasks.get(id).markDone();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -74,9 +253,27 @@ public class TaskList {
      * @param index Index in the list (0-based).
      */
     public void unmarkDone(int index) {
-        assert index >= 0 && index < tasks.size() : "index out of bounds: " + index;
-        assert tasks.get(index) != null : "stored task should not be null";
-        tasks.get(index).unmarkDone();
+        long stamp = lock.writeLock();
+        try {
+            taskAt(index).unmarkDone();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks a task as not done by ID.
+     *
+     * @param id Task ID (must be in the list).
+     */
+    public void unmarkDoneById(int id) {
+        long stamp = lock.writeLock();
+        try {
+            assert tasks.containsKey(id) : "no task with id " + id;
+            tasks.get(id).unmarkDone();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -86,36 +283,268 @@ public class TaskList {
      * @return The removed task.
      */
     public Task remove(int index) {
-        assert index >= 0 && index < tasks.size() : "index out of bounds: " + index;
-        Task removed = tasks.remove(index);
-        assert removed != null : "remove should return a non-null task";
+        long stamp = lock.writeLock();
+        try {
+            Task removed = removeUnlocked(taskAt(index).getId());
+            assert removed != null : "remove should return a non-null task";
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a task from the list by ID and returns it.
+     *
+     * @param id Task ID.
+     * @return The removed task, or null if no task in the list has that ID.
+     */
+    public Task removeById(int id) {
+        long stamp = lock.writeLock();
+        try {
+            return removeUnlocked(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Task removeUnlocked(int id) {
+        Task removed = tasks.remove(id);
+        if (removed != null) {
+            ordered.remove(id);
+            positions = null;
+            if (removed.getId() <= indexedThrough) {
+                trigrams.remove(removed);
+            }
+            reminders.remove(removed);
+            events.remove(removed);
+        }
         return removed;
     }
 
     /**
-     * Returns an unmodifiable view of the task list (read-only).
+     * Applies several edits as one change: readers see either none of them or all of them. Edits that no longer
+     * fit are skipped, e.g. removing a task that is not in the list or adding one whose ID is taken.
+     *
+     * <p>Edits name their task by ID, and the returned edits hold the task that is in the list now, which may be
+     * a different object than the one given (e.g. after {@link #setAll} reloaded the list).
+     *
+     * @param edits Edits to apply, in order.
+     * @return The edits that were applied, in order.
+     */
+    public List<Edit> applyAll(List<Edit> edits) {
+        assert edits != null : "edits should not be null";
+        List<Edit> applied = new ArrayList<>(edits.size());
+        long stamp = lock.writeLock();
+        try {
+            for (Edit edit : edits) {
+                Edit done = applyUnlocked(edit);
+                if (done != null) {
+                    applied.add(done);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return applied;
+    }
+
+    /**
+     * Applies one edit, returning it bound to the task in the list, or null if it does not fit.
+     */
+    private Edit applyUnlocked(Edit edit) {
+        Task task = edit.getTask();
+        switch (edit.getKind()) {
+        case ADD:
+            if (task.getId() != 0 && tasks.containsKey(task.getId())) {
+                return null;
+            }
+            addUnlocked(task);
+            return edit;
+        case REMOVE:
+            Task removed = removeUnlocked(task.getId());
+            return removed == null ? null : bind(edit, removed);
+        case MARK:
+        case UNMARK:
+            Task current = tasks.get(task.getId());
+            if (current == null) {
+                return null;
+            }
+            if (edit.getKind() == Edit.Kind.MARK) {
+                current.markDone();
+            } else {
+                current.unmarkDone();
+            }
+            return bind(edit, current);
+        default:
+            throw new AssertionError("unknown edit kind: " + edit.getKind());
+        }
+    }
+
+    private static Edit bind(Edit edit, Task live) {
+        return edit.getTask() == live ? edit : new Edit(edit.getKind(), live);
+    }
+
+    /**
+     * Returns a snapshot of which tasks are in the list, in list order. Tasks added or removed later
+     * do not affect it, but marking a task done later still shows through the task itself.
      *
      * @return Unmodifiable list of tasks.
      */
     public List<Task> getTasks() {
-        List<Task> view = Collections.unmodifiableList(tasks);
-        assert view != null : "unmodifiable view should not be null";
-        return view;
+        return readLocked(() -> List.copyOf(ordered.values()));
+    }
+
+    /**
+     * Runs {@code reader} against a consistent, read-only view of the tasks in list order, under the read lock,
+     * and returns its result. Use this instead of {@link #getTasks()} when the reader also looks at the tasks'
+     * fields (e.g. encoding them for a save), so that those are consistent too.
+     *
+     * <p>Changes wait until the reader returns, so it should not block; it must not change the list either.
+     *
+     * @param reader Computes a result from the tasks.
+     * @return The reader's result.
+     */
+    public <T> T read(Function<Collection<Task>, T> reader) {
+        Collection<Task> view = Collections.unmodifiableCollection(ordered.values());
+        return readLocked(() -> reader.apply(view));
+    }
+
+    /**
+     * Runs a read under the read lock. Reads walk the maps and indexes, which a concurrent change could leave
+     * half-updated, so unlike a read of a single field they cannot be run optimistically and validated after.
+     */
+    private <T> T readLocked(Supplier<T> reader) {
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Replaces every task in the list, e.g. after the data file was changed by another process.
+     *
+     * @param newTasks Tasks to hold from now on, in order.
+     */
+    public void setAll(Collection<Task> newTasks) {
+        assert newTasks != null : "newTasks should not be null";
+        long stamp = lock.writeLock();
+        try {
+            tasks.clear();
+            ordered.clear();
+            positions = null;
+            trigrams.clear();
+            isTextIndexed = false;
+            indexedThrough = 0;
+            textIndexing = null;
+            reminders.clear();
+            events.clear();
+            for (Task t : newTasks) {
+                addUnlocked(t);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
      * Finds task by keyword and return the tasks that matches.
+     * Keywords of three or more characters are answered from the trigram index. Shorter keywords match a large
+     * share of most lists anyway, so they are checked against every description, in parallel.
      *
      * @param keyword User keyword (e.g. book)
-     * @return List of tasks that match
+     * @return List of tasks that match, in list order
      */
     public List<Task> findByKeyword(String keyword) {
         assert keyword != null : "keyword should not be null";
         String key = keyword.toLowerCase();
+        indexText();
+        return readLocked(() -> matches(key));
+    }
+
+    /**
+     * Starts building the trigram index in the background if it is not built or being built yet.
+     */
+    private void indexText() {
+        if (isTextIndexed || textIndexing != null) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (!isTextIndexed && textIndexing == null) {
+                CompletableFuture<Void> build = new CompletableFuture<>();
+                textIndexing = build;
+                ForkJoinPool.commonPool().execute(() -> buildTextIndex(build));
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds the tasks not indexed yet to the trigram index, a chunk per write lock so that changes and reads are
+     * never held up for long. Stops early if the list is replaced meanwhile; the next find starts over.
+     */
+    private void buildTextIndex(CompletableFuture<Void> build) {
+        try {
+            boolean isDone = false;
+            while (!isDone) {
+                long stamp = lock.writeLock();
+                try {
+                    if (textIndexing != build) {
+                        break;
+                    }
+                    int count = 0;
+                    for (Task t : ordered.tailMap(indexedThrough, false).values()) {
+                        if (count == INDEX_CHUNK_SIZE) {
+                            break;
+                        }
+                        trigrams.add(t);
+                        indexedThrough = t.getId();
+                        count++;
+                    }
+                    if (count < INDEX_CHUNK_SIZE) {
+                        // every task from now on is indexed as it is added
+                        indexedThrough = Integer.MAX_VALUE;
+                        isTextIndexed = true;
+                        isDone = true;
+                    }
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+            build.complete(null);
+        } catch (RuntimeException e) {
+            // finds keep scanning the descriptions
+            build.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Waits for the background build of the trigram index started by a find, if there is one.
+     */
+    void awaitTextIndex() {
+        CompletableFuture<Void> build = textIndexing;
+        if (build != null) {
+            build.join();
+        }
+    }
 
-        return tasks.stream()
-                .filter(t -> t.getDescription().toLowerCase().contains(key))
-                .collect(Collectors.toList());
+    private List<Task> matches(String key) {
+        if (!isTextIndexed || key.length() < TrigramIndex.MIN_KEY_LENGTH) {
+            // the index is still being built, or the keyword is too short to look up
+            List<Task> all = new ArrayList<>(ordered.values());
+            int[] hits = ParallelFilter.filter(all.size(),
+                    i -> all.get(i).getDescription().toLowerCase().contains(key));
+            List<Task> matches = new ArrayList<>(hits.length);
+            for (int i : hits) {
+                matches.add(all.get(i));
+            }
+            return matches;
+        }
+        return trigrams.find(key, tasks);
     }
 
     /**
@@ -125,21 +554,19 @@ public class TaskList {
      */
     public void printMatches(String keyword) {
         assert keyword != null : "keyword should not be null";
-
-        int count = 0;
         String key = keyword.toLowerCase();
+        indexText();
 
-        for (int i = 0; i < tasks.size(); i++) {
-            Task t = tasks.get(i);
-            assert t != null : "stored task should not be null";
-            assert t.getDescription() != null : "task description should not be null";
-
-            if (t.getDescription().toLowerCase().contains(key)) {
+        List<String> lines = readLocked(() -> {
+            List<String> numbered = new ArrayList<>();
+            int count = 0;
+            for (Task t : matches(key)) {
                 count++;
-                System.out.println(String.format("%d. %s", count, tasks.get(i)));
+                numbered.add(String.format("%d. #%d %s", count, t.getId(), t));
             }
-        }
-        assert count >= 0 : "match count should never be negative";
+            return numbered;
+        });
+        lines.forEach(System.out::println);
     }
 
     // =========================
@@ -148,43 +575,90 @@ public class TaskList {
 
     /** Returns the full task list as a string (for GUI). */
     public String formatList() {
-        if (tasks.isEmpty()) {
-            return "(no tasks yet)";
-        }
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < tasks.size(); i++) {
-            assert tasks.get(i) != null : "stored task should not be null";
-            sb.append(i + 1).append(". ").append(tasks.get(i)).append("\n");
-        }
-        String result = sb.toString().trim();
-        assert !result.isBlank() : "formatted list should not be blank when tasks is non-empty";
-        return result;
+        return readLocked(() -> {
+            if (tasks.isEmpty()) {
+                return "(no tasks yet)";
+            }
+            StringBuilder sb = new StringBuilder();
+            int i = 0;
+            for (Task t : ordered.values()) {
+                assert t != null : "stored task should not be null";
+                i++;
+                appendNumbered(sb, i, t);
+            }
+            return withoutLastNewline(sb);
+        });
+    }
+
+    /**
+     * Returns one page of the task list as a string, numbered by position in the whole list
+     * (e.g. page 2 of size 10 starts at "11."). The page is found by position without visiting the tasks
+     * before it, and only the page's own lines are built.
+     *
+     * @param page     Page number (1-based).
+     * @param pageSize Number of tasks per page (must be positive).
+     * @return The page's lines, or "(no tasks on this page)" if the list is shorter than that.
+     */
+    public String formatPage(int page, int pageSize) {
+        assert page > 0 && pageSize > 0 : "page and page size should be positive";
+        long skip = (long) (page - 1) * pageSize;
+
+        return readLocked(() -> {
+            if (skip >= tasks.size()) {
+                return "(no tasks on this page)";
+            }
+            Task[] all = positions();
+            int end = (int) Math.min(all.length, skip + pageSize);
+            StringBuilder sb = new StringBuilder();
+            for (int i = (int) skip; i < end; i++) {
+                appendNumbered(sb, i + 1, all[i]);
+            }
+            return withoutLastNewline(sb);
+        });
     }
 
     /** Returns matching tasks as a string (for GUI). */
     public String formatMatches(String keyword) {
         assert keyword != null : "keyword should not be null";
-
         String key = keyword.toLowerCase();
-        int count = 0;
-        StringBuilder sb = new StringBuilder();
+        indexText();
 
-        for (Task t : tasks) {
-            assert t != null : "stored task should not be null";
-            assert t.getDescription() != null : "task description should not be null";
-
-            if (t.getDescription().toLowerCase().contains(key)) {
-                count++;
-                sb.append(count).append(". ").append(t).append("\n");
+        return readLocked(() -> {
+            List<Task> matches = matches(key);
+            if (matches.isEmpty()) {
+                return "(no matching tasks)";
             }
-        }
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < matches.size(); i++) {
+                appendNumbered(sb, i + 1, matches.get(i));
+            }
+            String result = withoutLastNewline(sb);
+            assert !result.isBlank() : "formatted matches should not be blank when there are matches";
+            return result;
+        });
+    }
 
-        if (count == 0) {
-            return "(no matching tasks)";
+    /**
+     * Returns the tasks (deadlines/events) whose reminder time lies in {@code [from, to]}, earliest first.
+     * Tasks due at the same time keep their list order.
+     *
+     * @param from Start of the range (inclusive).
+     * @param to   End of the range (inclusive).
+     * @return Matching tasks in time order.
+     */
+    public List<Task> findUpcoming(LocalDateTime from, LocalDateTime to) {
+        assert from != null && to != null : "range should not be null";
+        return readLocked(() -> upcoming(from, to));
+    }
+
+    private List<Task> upcoming(LocalDateTime from, LocalDateTime to) {
+        List<Task> upcoming = new ArrayList<>();
+        for (int id : reminders.findBetween(from, to)) {
+            Task t = tasks.get(id);
+            assert t != null : "indexed task should be in the list";
+            upcoming.add(t);
         }
-        String result = sb.toString().trim();
-        assert !result.isBlank() : "formatted matches should not be blank when there are matches";
-        return result;
+        return upcoming;
     }
 
     /**
@@ -197,25 +671,157 @@ public class TaskList {
         assert days > 0 : "days should be positive";
 
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime end = now.plusDays(days);
+        return readLocked(() -> {
+            List<Task> upcoming = upcoming(now, now.plusDays(days));
+            if (upcoming.isEmpty()) {
+                return "(no upcoming tasks)";
+            }
+
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < upcoming.size(); i++) {
+                appendNumbered(sb, i + 1, upcoming.get(i));
+            }
+            return withoutLastNewline(sb);
+        });
+    }
 
-        List<Task> upcoming = tasks.stream()
-                .filter(t -> t.getReminderDateTime().isPresent())
-                .filter(t -> {
-                    LocalDateTime dt = t.getReminderDateTime().get();
-                    return !dt.isBefore(now) && !dt.isAfter(end);
-                })
-                .sorted(Comparator.comparing(t -> t.getReminderDateTime().get()))
-                .collect(Collectors.toList());
+    /**
+     * Returns the events that overlap {@code [from, to)}, in start order.
+     * Events whose start or end could not be parsed are never included.
+     *
+     * @param from Start of the range (inclusive).
+     * @param to   End of the range (exclusive).
+     * @return Overlapping events.
+     */
+    public List<Event> findOverlapping(LocalDateTime from, LocalDateTime to) {
+        assert from != null && to != null : "range should not be null";
+        return readLocked(() -> overlapping(from, to));
+    }
 
-        if (upcoming.isEmpty()) {
-            return "(no upcoming tasks)";
+    private List<Event> overlapping(LocalDateTime from, LocalDateTime to) {
+        List<Event> overlapping = new ArrayList<>();
+        for (int id : events.findOverlapping(from, to)) {
+            Task t = tasks.get(id);
+            assert t instanceof Event : "indexed task should be an event in the list";
+            overlapping.add((Event) t);
         }
+        return overlapping;
+    }
+
+    /**
+     * Returns the other events that overlap the given event, in start order.
+     *
+     * @param event Event to check (need not be in the list).
+     * @return Overlapping events, or an empty list if the event's times could not be parsed.
+     */
+    public List<Event> findConflicts(Event event) {
+        assert event != null : "event should not be null";
+        return readLocked(() -> conflicts(event));
+    }
+
+    private List<Event> conflicts(Event event) {
+        if (event.getStart().isEmpty() || event.getEnd().isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Event> conflicts = overlapping(event.getStart().get(), event.getEnd().get());
+        conflicts.remove(event);
+        return conflicts;
+    }
+
+    /**
+     * Returns the first pairs of overlapping events as a string (for GUI), ordered by the earlier event's start.
+     * A dense calendar can have a pair for almost every two events, so at most {@code limit} pairs are formatted;
+     * the rest are only counted, and a last line says how many were left out.
+     *
+     * @param limit Largest number of pairs to show (must be positive).
+     * @return Formatted conflicts, or "(no conflicting events)" if none.
+     */
+    public String formatConflicts(int limit) {
+        assert limit > 0 : "limit should be positive";
+        return readLocked(() -> {
+            StringBuilder sb = new StringBuilder();
+            long count = 0;
+            for (Event event : overlapping(LocalDateTime.MIN, LocalDateTime.MAX)) {
+                for (Event other : conflicts(event)) {
+                    // each pair is reported once, from the event that comes first in start order
+                    if (!isAfter(other, event)) {
+                        continue;
+                    }
+                    count++;
+                    if (count <= limit) {
+                        appendNumbered(sb, (int) count, event);
+                        sb.append("   overlaps #").append(other.getId()).append(' ').append(other).append("\n");
+                    }
+                }
+            }
+            if (count == 0) {
+                return "(no conflicting events)";
+            }
+            if (count > limit) {
+                long omitted = count - limit;
+                sb.append("...and ").append(omitted).append(" more overlapping pair").append(omitted == 1 ? "" : "s")
+                        .append(" not shown.\n");
+            }
+            return withoutLastNewline(sb);
+        });
+    }
+
+    private static boolean isAfter(Event other, Event event) {
+        int byStart = other.getStart().get().compareTo(event.getStart().get());
+        return byStart > 0 || (byStart == 0 && other.getId() > event.getId());
+    }
+
+    /**
+     * Returns the times on the given day that no event covers, as a string (for GUI).
+     * Gaps shorter than a minute are ignored.
+     *
+     * @param date Day to check.
+     * @return One "HH:mm - HH:mm" line per free slot, or "(no free time)" if the day is fully booked.
+     */
+    public String formatFreeSlots(LocalDate date) {
+        assert date != null : "date should not be null";
+        LocalDateTime dayStart = date.atStartOfDay();
+        LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
+
+        return readLocked(() -> {
+            StringBuilder sb = new StringBuilder();
+            LocalDateTime free = dayStart;
+            for (Event event : overlapping(dayStart, dayEnd)) {
+                appendSlot(sb, free, event.getStart().get(), dayEnd);
+                if (event.getEnd().get().isAfter(free)) {
+                    free = event.getEnd().get();
+                }
+            }
+            appendSlot(sb, free, dayEnd, dayEnd);
 
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < upcoming.size(); i++) {
-            sb.append(i + 1).append(". ").append(upcoming.get(i)).append("\n");
+            if (sb.length() == 0) {
+                return "(no free time)";
+            }
+            return withoutLastNewline(sb);
+        });
+    }
+
+    private static void appendSlot(StringBuilder sb, LocalDateTime from, LocalDateTime to, LocalDateTime dayEnd) {
+        if (from.plusMinutes(1).isAfter(to)) {
+            return;
         }
-        return sb.toString().trim();
+        sb.append(from.format(SLOT_TIME)).append(" - ")
+                .append(to.equals(dayEnd) ? "24:00" : to.format(SLOT_TIME)).append("\n");
+    }
+
+    /**
+     * Appends one line like "2. #17 [T] [ ] read book", showing both the list number and the task ID.
+     */
+    private static void appendNumbered(StringBuilder sb, int number, Task t) {
+        sb.append(number).append(". #").append(t.getId()).append(' ').append(t).append("\n");
+    }
+
+    /**
+     * Returns the built lines without the final newline, without copying them twice as {@code trim()} would.
+     */
+    private static String withoutLastNewline(StringBuilder sb) {
+        assert sb.length() > 0 && sb.charAt(sb.length() - 1) == '\n' : "lines should end with a newline";
+        sb.setLength(sb.length() - 1);
+        return sb.toString();
     }
 }
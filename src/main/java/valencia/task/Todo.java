@@ -14,13 +14,8 @@ public class Todo extends Task {
         super(description);
     }
 
-    /**
-     * Returns the string representation of a todo task.
-     *
-     * @return Formatted todo string.
-     */
     @Override
-    public String toString() {
-        return String.format("[T] %s", super.toString());
+    protected String getTag() {
+        return "[T] ";
     }
 }
@@ -0,0 +1,164 @@
+package valencia.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index from every three-character sequence (trigram) of the lower-cased task descriptions to the IDs of the
+ * tasks containing it, kept up to date by {@link TaskList} as tasks are added and removed.
+ *
+ * <p>A description can only contain a keyword if it contains every trigram of the keyword, so intersecting
+ * those trigrams' posting lists gives a small set of candidates. Each candidate is then checked with
+ * {@code contains}, so the result is exactly what a full scan would return. When a common keyword leaves many
+ * candidates, they are checked in parallel by {@link ParallelFilter}.
+ *
+ * <p>Each posting list is a sorted {@code int[]} of IDs, so the index costs about four bytes per trigram of
+ * each description and the lists are intersected without boxing or sorting.
+ */
+class TrigramIndex {
+    /** Shortest keyword that has a trigram to look up. */
+    static final int MIN_KEY_LENGTH = 3;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    /**
+     * Indexes a task that was just added to the list.
+     *
+     * @param task Task to index (must already have its ID).
+     */
+    void add(Task task) {
+        assert task.getId() > 0 : "indexed task should have an id";
+        for (long trigram : trigrams(task.getDescription().toLowerCase())) {
+            postings.computeIfAbsent(trigram, g -> new Postings()).add(task.getId());
+        }
+    }
+
+    /**
+     * Drops a task that was removed from the list.
+     *
+     * @param task Task to drop.
+     */
+    void remove(Task task) {
+        for (long trigram : trigrams(task.getDescription().toLowerCase())) {
+            Postings ids = postings.get(trigram);
+            if (ids != null && ids.remove(task.getId()) && ids.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Finds the tasks whose lower-cased description contains the keyword.
+     *
+     * @param key   Lower-cased keyword of at least {@link #MIN_KEY_LENGTH} characters.
+     * @param tasks The indexed tasks by ID, used to verify candidates.
+     * @return The matching tasks, in list (ID) order.
+     */
+    List<Task> find(String key, Map<Integer, Task> tasks) {
+        assert key.length() >= MIN_KEY_LENGTH : "keyword too short for the trigram index: " + key;
+
+        List<Postings> lists = new ArrayList<>();
+        for (long trigram : trigrams(key)) {
+            Postings ids = postings.get(trigram);
+            if (ids == null) {
+                return new ArrayList<>();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(ids -> ids.size));
+
+        // start from the shortest list and keep the IDs found in every other one, still in ID order
+        int[] candidates = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            Postings other = lists.get(i);
+            int kept = 0;
+            for (int j = 0; j < count; j++) {
+                if (other.contains(candidates[j])) {
+                    candidates[kept++] = candidates[j];
+                }
+            }
+            count = kept;
+        }
+
+        int[] found = candidates;
+        int[] hits = ParallelFilter.filter(count,
+                i -> tasks.get(found[i]).getDescription().toLowerCase().contains(key));
+        List<Task> matches = new ArrayList<>(hits.length);
+        for (int i : hits) {
+            matches.add(tasks.get(found[i]));
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the distinct trigrams of the text, each packed into the low 48 bits of a long, in increasing order.
+     */
+    private static long[] trigrams(String text) {
+        int count = Math.max(0, text.length() - MIN_KEY_LENGTH + 1);
+        long[] trigrams = new long[count];
+        for (int i = 0; i < count; i++) {
+            trigrams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || trigrams[i] != trigrams[distinct - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return distinct == count ? trigrams : Arrays.copyOf(trigrams, distinct);
+    }
+
+    /**
+     * IDs of the tasks containing one trigram, sorted and without duplicates. New tasks have the highest ID, so
+     * adding one appends; only a task re-added with its old ID (e.g. by undo) is inserted in the middle.
+     */
+    private static class Postings {
+        private int[] ids = new int[2];
+        private int size = 0;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int at = Arrays.binarySearch(ids, 0, size, id);
+                if (at >= 0) {
+                    return;
+                }
+                insert(-at - 1, id);
+                return;
+            }
+            insert(size, id);
+        }
+
+        private void insert(int at, int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
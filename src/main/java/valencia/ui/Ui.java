@@ -1,5 +1,6 @@
 package valencia.ui;
 
+import java.io.PrintStream;
 import java.util.Scanner;
 
 /**
@@ -53,6 +54,15 @@ public class Ui {
         System.out.println(message);
     }
 
+    /**
+     * Returns the stream messages are printed to, for replies that are written out piece by piece.
+     *
+     * @return Standard output.
+     */
+    public PrintStream getOutput() {
+        return System.out;
+    }
+
     /**
      * Prints multiple lines to the user.
      *
@@ -1,12 +1,123 @@
 package valencia;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valencia.storage.DatabaseStorageBackend;
+import valencia.storage.SnapshotFormat;
+import valencia.storage.Storage;
+import valencia.task.TaskList;
 
 public class ValenciaTest {
+    @TempDir
+    Path tempDir;
+
     @Test
     public void dummyTest() {
         assertEquals(2, 2);
     }
+
+    @Test
+    public void undo_restoresDeletedTaskInPlaceAndOnDisk() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Valencia valencia = new Valencia(file);
+        valencia.getResponse("todo A");
+        valencia.getResponse("todo B");
+        valencia.getResponse("todo C");
+        valencia.getResponse("mark 2");
+        valencia.getResponse("delete #2");
+
+        valencia.getResponse("undo");
+        assertEquals("1. #1 [T] [ ] A\n2. #2 [T] [X] B\n3. #3 [T] [ ] C", load(file).formatList());
+
+        valencia.getResponse("undo");
+        valencia.getResponse("redo");
+        valencia.getResponse("redo");
+        assertEquals("1. #1 [T] [ ] A\n2. #3 [T] [ ] C", load(file).formatList());
+        assertEquals("OOPS!!! There is nothing to redo!", valencia.getResponse("redo"));
+    }
+
+    @Test
+    public void undo_afterOtherProcessCompacted_changesReloadedTask() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Valencia valencia = new Valencia(file);
+        valencia.getResponse("todo A");
+        valencia.getResponse("mark 1");
+        Storage other = new Storage(file, Valencia.JOURNAL_COMPACT_THRESHOLD);
+        other.save(other.load());
+
+        assertEquals("Undone! Here is what changed:\nunmarked #1 [T] [ ] A", valencia.getResponse("undo"));
+        assertEquals("1. #1 [T] [ ] A", load(file).formatList());
+        valencia.getResponse("redo");
+        assertEquals("1. #1 [T] [X] A", load(file).formatList());
+    }
+
+    @Test
+    public void storageWarnings_includeProblemsFoundWhileLoading() throws Exception {
+        Path file = tempDir.resolve("valencia.txt");
+        Files.writeString(file, "T | 0 | A" + System.lineSeparator() + "not a task" + System.lineSeparator());
+
+        Valencia valencia = new Valencia(file.toString());
+        assertTrue(valencia.getStorageWarnings().startsWith("Warning: "));
+        assertEquals("", valencia.getStorageWarnings());
+    }
+
+    @Test
+    public void createStorage_optionsSelectBackendAndSnapshotFormat() {
+        assertEquals(SnapshotFormat.TEXT, ((Storage) Valencia.createStorage(List.of())).getSnapshotFormat());
+        assertEquals(SnapshotFormat.BINARY,
+                ((Storage) Valencia.createStorage(List.of(Valencia.BINARY_OPTION))).getSnapshotFormat());
+        assertTrue(Valencia.createStorage(List.of("--other", Valencia.DATABASE_OPTION))
+                instanceof DatabaseStorageBackend);
+    }
+
+    @Test
+    public void bulkDelete_isOneUndoStep() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Valencia valencia = new Valencia(file);
+        for (String name : List.of("A", "B", "C", "D", "E")) {
+            valencia.getResponse("todo " + name);
+        }
+        valencia.getResponse("mark 1,4");
+
+        assertEquals("Noted. I've removed these 2 tasks:\n[T] [X] A\n[T] [X] D\nNow you have 3 tasks in the list.",
+                valencia.getResponse("delete done"));
+        valencia.getResponse("delete 2-3");
+        assertEquals("1. #2 [T] [ ] B", load(file).formatList());
+
+        valencia.getResponse("undo");
+        valencia.getResponse("undo");
+        assertEquals("1. #1 [T] [X] A\n2. #2 [T] [ ] B\n3. #3 [T] [ ] C\n4. #4 [T] [X] D\n5. #5 [T] [ ] E",
+                load(file).formatList());
+    }
+
+    @Test
+    public void list_longListIsPagedButStreamsWhole() throws Exception {
+        Valencia valencia = new Valencia(tempDir.resolve("valencia.txt").toString());
+        for (int i = 1; i <= Valencia.LIST_PAGE_SIZE + 1; i++) {
+            valencia.getResponse("todo task " + i);
+        }
+
+        String firstPage = valencia.getResponse("list");
+        assertTrue(firstPage.startsWith("Here are the tasks in your list (page 1 of 2):\n1. #1 "));
+        assertTrue(firstPage.endsWith("\nType \"list 2\" to see the next page."));
+        assertEquals("Here are the tasks in your list (page 2 of 2):\n101. #101 [T] [ ] task 101",
+                valencia.getResponse("list 2"));
+        assertEquals("OOPS!!! There are only 2 pages of tasks!", valencia.getResponse("list 3"));
+
+        StringBuilder out = new StringBuilder();
+        valencia.writeResponse("list", out);
+        assertEquals(Valencia.LIST_PAGE_SIZE + 2, out.toString().split("\n").length);
+    }
+
+    private static TaskList load(String file) {
+        return new Storage(file, Valencia.JOURNAL_COMPACT_THRESHOLD).load();
+    }
 }
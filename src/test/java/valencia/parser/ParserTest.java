@@ -1,10 +1,12 @@
 package valencia.parser;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
@@ -25,6 +27,42 @@ public class ParserTest {
         assertThrows(ValenciaException.class, () -> Parser.parseTaskNumber("delete abc", "delete"));
     }
 
+    @Test
+    public void parseTaskId_hashPrefixedId_returnsId() {
+        assertTrue(Parser.isTaskId("mark #12", "mark"));
+        assertEquals(12, Parser.parseTaskId("mark #12", "mark"));
+        assertFalse(Parser.isTaskId("mark 12", "mark"));
+    }
+
+    @Test
+    public void parseTaskId_missingId_throwsException() {
+        assertThrows(ValenciaException.class, () -> Parser.parseTaskId("delete #", "delete"));
+        assertThrows(ValenciaException.class, () -> Parser.parseTaskId("delete #0", "delete"));
+    }
+
+    @Test
+    public void parseTaskNumbers_rangesAndLists_returnsSortedDistinctNumbers() {
+        assertEquals(List.of(3), Parser.parseTaskNumbers("delete 3", "delete", 5));
+        assertEquals(List.of(2, 3, 4), Parser.parseTaskNumbers("delete 2-4", "delete", 5));
+        assertEquals(List.of(1, 2, 3, 5), Parser.parseTaskNumbers("mark 5, 1-3,2", "mark", 5));
+        assertThrows(ValenciaException.class, () -> Parser.parseTaskNumbers("delete 4-2", "delete", 5));
+        assertThrows(ValenciaException.class, () -> Parser.parseTaskNumbers("delete 1-6", "delete", 5));
+        assertThrows(ValenciaException.class, () -> Parser.parseTaskNumbers("mark 1,,2", "mark", 5));
+        assertTrue(Parser.isDoneTasks("delete DONE", "delete"));
+    }
+
+    @Test
+    public void parseListPage_optionalPageAndSize() {
+        assertEquals(0, Parser.parseListPage("list"));
+        assertEquals(100, Parser.parseListPageSize("list", 100));
+        assertEquals(3, Parser.parseListPage("list 3"));
+        assertEquals(100, Parser.parseListPageSize("list 3", 100));
+        assertEquals(20, Parser.parseListPageSize("list 3 20", 100));
+        assertThrows(ValenciaException.class, () -> Parser.parseListPage("list 0"));
+        assertThrows(ValenciaException.class, () -> Parser.parseListPageSize("list 1 x", 100));
+        assertThrows(ValenciaException.class, () -> Parser.parseListPage("list 1 2 3"));
+    }
+
     @Test
     public void validateTaskNumber_outOfRange_throwsException() {
         // make a tiny fake TaskList just for size
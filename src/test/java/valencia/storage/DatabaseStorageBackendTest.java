@@ -0,0 +1,91 @@
+package valencia.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valencia.task.Deadline;
+import valencia.task.Edit;
+import valencia.task.Event;
+import valencia.task.Task;
+import valencia.task.TaskList;
+import valencia.task.Todo;
+
+public class DatabaseStorageBackendTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void perOperationChanges_surviveReopen() {
+        String db = tempDir.resolve("valencia").toString();
+        DatabaseStorageBackend backend = new DatabaseStorageBackend(db);
+        TaskList list = backend.load();
+
+        list.add(new Todo("A"));
+        backend.insert(list.get(0), list);
+        list.add(new Deadline("B", LocalDate.of(2026, 2, 1)));
+        backend.insert(list.get(1), list);
+        list.add(new Event("C", "2026-02-03 1400", "1600"));
+        backend.insert(list.get(2), list);
+        list.markDone(2);
+        backend.updateDone(list.get(2), list);
+        backend.delete(list.remove(0), list);
+        backend.close();
+
+        DatabaseStorageBackend reopened = new DatabaseStorageBackend(db);
+        TaskList loaded = reopened.load();
+        reopened.close();
+
+        assertEquals(list.formatList(), loaded.formatList());
+        assertFalse(backend.pollError().isPresent());
+    }
+
+    @Test
+    public void save_replacesAllRowsAndKeepsIndexesInStep() {
+        String db = tempDir.resolve("valencia").toString();
+        DatabaseStorageBackend backend = new DatabaseStorageBackend(db);
+        TaskList list = backend.load();
+        list.add(new Todo("A"));
+        list.add(new Todo("B"));
+        backend.save(list);
+
+        list.markDone(1);
+        backend.updateDone(list.get(1), list);
+        backend.close();
+
+        DatabaseStorageBackend reopened = new DatabaseStorageBackend(db);
+        TaskList loaded = reopened.load();
+        reopened.close();
+
+        assertEquals(2, loaded.size());
+        assertEquals("[T] [X] B", loaded.get(1).toString());
+    }
+
+    @Test
+    public void saveEdits_runsStatementsInEditOrder() {
+        String db = tempDir.resolve("valencia").toString();
+        DatabaseStorageBackend backend = new DatabaseStorageBackend(db);
+        TaskList list = backend.load();
+        Task task = new Todo("A");
+        list.add(task);
+        backend.insert(task, list);
+
+        // marked and removed, then put back not done (e.g. by undo), all in one batch
+        backend.saveEdits(List.of(new Edit(Edit.Kind.MARK, task), new Edit(Edit.Kind.REMOVE, task),
+                new Edit(Edit.Kind.ADD, task)), list);
+        backend.close();
+
+        DatabaseStorageBackend reopened = new DatabaseStorageBackend(db);
+        TaskList loaded = reopened.load();
+        reopened.close();
+
+        assertEquals("[T] [ ] A", loaded.get(0).toString());
+        assertFalse(backend.pollError().isPresent());
+    }
+}
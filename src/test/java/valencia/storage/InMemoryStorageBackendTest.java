@@ -0,0 +1,43 @@
+package valencia.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import valencia.task.Deadline;
+import valencia.task.TaskList;
+import valencia.task.Todo;
+
+public class InMemoryStorageBackendTest {
+    @Test
+    public void perOperationChanges_areVisibleOnLoad() {
+        StorageBackend backend = new InMemoryStorageBackend();
+        TaskList list = backend.load();
+
+        list.add(new Todo("A"));
+        backend.insert(list.get(0), list);
+        list.add(new Deadline("B", LocalDate.of(2026, 2, 1)));
+        backend.insert(list.get(1), list);
+        list.markDone(1);
+        backend.updateDone(list.get(1), list);
+        backend.delete(list.remove(0), list);
+
+        TaskList loaded = backend.load();
+        assertEquals(list.formatList(), loaded.formatList());
+        assertEquals(4, backend.getSaveStats().getCommits());
+    }
+
+    @Test
+    public void unsavedChanges_areNotStored() {
+        StorageBackend backend = new InMemoryStorageBackend();
+        TaskList list = new TaskList();
+        list.add(new Todo("A"));
+        backend.save(list);
+
+        list.markDone(0);
+
+        assertEquals("[T] [ ] A", backend.load().get(0).toString());
+    }
+}
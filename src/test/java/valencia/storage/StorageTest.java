@@ -0,0 +1,456 @@
+package valencia.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import valencia.task.Deadline;
+import valencia.task.Edit;
+import valencia.task.Event;
+import valencia.task.TaskList;
+import valencia.task.Todo;
+
+public class StorageTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void saveThenLoad_roundTripsAllTaskTypes() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        TaskList list = new TaskList();
+        list.add(new Todo("read book"));
+        list.add(new Deadline("return book", LocalDate.of(2026, 2, 1)));
+        list.add(new Event("project meeting", "2026-02-03 1400", "1600"));
+        list.markDone(1);
+
+        new Storage(file).save(list);
+        TaskList loaded = new Storage(file).load();
+
+        assertEquals(3, loaded.size());
+        assertEquals(list.formatList(), loaded.formatList());
+    }
+
+    @Test
+    public void journaledMutations_areReplayedOnLoad() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Storage storage = new Storage(file, 100);
+        TaskList list = storage.load();
+
+        list.add(new Todo("A"));
+        storage.insert(list.get(0), list);
+        list.add(new Todo("B"));
+        storage.insert(list.get(1), list);
+        list.markDone(1);
+        storage.updateDone(list.get(1), list);
+        storage.delete(list.remove(0), list);
+
+        assertFalse(Files.exists(tempDir.resolve("valencia.txt")));
+        assertTrue(Files.exists(tempDir.resolve("valencia.txt.journal")));
+
+        TaskList loaded = new Storage(file, 100).load();
+        assertEquals(1, loaded.size());
+        assertEquals("B", loaded.get(0).getDescription());
+        assertTrue(loaded.get(0).isDone());
+    }
+
+    @Test
+    public void saveEdits_appendsAllRecordsInOneCommit() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Storage storage = new Storage(file, 100);
+        TaskList list = storage.load();
+        List<Edit> adds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            adds.add(new Edit(Edit.Kind.ADD, new Todo("task " + i)));
+        }
+        storage.saveEdits(list.applyAll(adds), list);
+
+        List<Edit> changes = List.of(new Edit(Edit.Kind.REMOVE, list.getById(2)),
+                new Edit(Edit.Kind.MARK, list.getById(4)), new Edit(Edit.Kind.REMOVE, list.getById(5)));
+        storage.saveEdits(list.applyAll(changes), list);
+
+        assertEquals(2, storage.getSaveStats().getCommits());
+        assertFalse(Files.exists(tempDir.resolve("valencia.txt")));
+        assertEquals("1. #1 [T] [ ] task 0\n2. #3 [T] [ ] task 2\n3. #4 [T] [X] task 3",
+                new Storage(file, 100).load().formatList());
+    }
+
+    @Test
+    public void beginUpdate_reportsFileAlreadyLockedInThisProcess() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Storage first = new Storage(file, 10);
+        Storage second = new Storage(file, 10);
+        TaskList list = first.load();
+        TaskList other = second.load();
+
+        first.beginUpdate(list);
+        second.beginUpdate(other);
+        second.endUpdate();
+        first.endUpdate();
+
+        assertTrue(second.pollError().orElse("").endsWith(": the file is already open in this process"));
+        assertFalse(first.pollError().isPresent());
+    }
+
+    @Test
+    public void journal_isCompactedIntoSnapshotAtThreshold() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Storage storage = new Storage(file, 3);
+        TaskList list = storage.load();
+
+        for (int i = 0; i < 3; i++) {
+            list.add(new Todo("task " + i));
+            storage.insert(list.get(i), list);
+        }
+
+        assertTrue(Files.exists(tempDir.resolve("valencia.txt")));
+        assertFalse(Files.exists(tempDir.resolve("valencia.txt.journal")));
+        assertEquals(3, new Storage(file, 3).load().size());
+    }
+
+    @Test
+    public void writeBehind_flushPersistsCoalescedChanges() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Storage storage = new Storage(file, 100);
+        storage.enableWriteBehind(10_000);
+        TaskList list = storage.load();
+
+        for (int i = 0; i < 5; i++) {
+            list.add(new Todo("task " + i));
+            storage.insert(list.get(i), list);
+        }
+        list.markDone(2);
+        storage.updateDone(list.get(2), list);
+
+        storage.flush();
+        TaskList loaded = new Storage(file, 100).load();
+        assertEquals(5, loaded.size());
+        assertTrue(loaded.get(2).isDone());
+
+        storage.close();
+        assertFalse(storage.pollError().isPresent());
+    }
+
+    @Test
+    public void writeBehind_commandsInOneBatchShareTheLockAndOneCommit() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Storage storage = new Storage(file, 100);
+        storage.enableWriteBehind(10_000);
+        TaskList list = storage.load();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(storage.beginUpdate(list).isEmpty());
+            list.add(new Todo("task " + i));
+            storage.insert(list.get(i), list);
+            storage.endUpdate();
+        }
+        assertEquals(0, storage.getSaveStats().getCommits());
+
+        storage.flush();
+        assertEquals(1, storage.getSaveStats().getCommits());
+        storage.beginUpdate(list); // the writer released the lock after committing
+        storage.endUpdate();
+        storage.close();
+        assertEquals(3, new Storage(file, 100).load().size());
+        assertFalse(storage.pollError().isPresent());
+    }
+
+    @Test
+    public void load_largeFile_parsesChunksInOriginalOrder() throws Exception {
+        Path file = tempDir.resolve("valencia.txt");
+        StringBuilder sb = new StringBuilder();
+        int count = 0;
+        while (sb.length() < 3 * ChunkedTaskLoader.PARALLEL_THRESHOLD_BYTES) {
+            sb.append("T | ").append(count % 2).append(" | task number ").append(count).append(System.lineSeparator());
+            count++;
+        }
+        Files.writeString(file, sb.toString());
+
+        TaskList loaded = new Storage(file.toString()).load();
+
+        assertEquals(count, loaded.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("task number " + i, loaded.get(i).getDescription());
+            assertEquals(i % 2 == 1, loaded.get(i).isDone());
+        }
+    }
+
+    @Test
+    public void binarySnapshot_roundTripsAndConvertsBackToText() throws Exception {
+        String file = tempDir.resolve("valencia.txt").toString();
+        TaskList list = new TaskList();
+        list.add(new Todo("read book"));
+        list.add(new Deadline("return book", LocalDate.of(2026, 2, 1)));
+        list.add(new Event("meeting", "2026-02-03 1400", "2026-02-03"));
+        list.add(new Event("party", "Mon 2pm", "4pm"));
+        list.markDone(3);
+
+        Storage storage = new Storage(file);
+        storage.setSnapshotFormat(SnapshotFormat.BINARY);
+        storage.save(list);
+        assertTrue(BinaryTaskCodec.isBinary(tempDir.resolve("valencia.txt")));
+
+        TaskList loaded = new Storage(file).load();
+        assertEquals(list.formatList(), loaded.formatList());
+
+        new Storage(file).save(loaded);
+        assertFalse(BinaryTaskCodec.isBinary(tempDir.resolve("valencia.txt")));
+        assertEquals(list.formatList(), new Storage(file).load().formatList());
+    }
+
+    @Test
+    public void load_finishesSnapshotInstallInterruptedByCrash() throws Exception {
+        Files.writeString(tempDir.resolve("valencia.txt"), "T | 0 | old" + System.lineSeparator());
+        Files.writeString(tempDir.resolve("valencia.txt.journal"), "+ | T | 0 | covered" + System.lineSeparator());
+        Files.writeString(tempDir.resolve("valencia.txt.new"),
+                "T | 0 | old" + System.lineSeparator() + "T | 0 | covered" + System.lineSeparator());
+        Files.writeString(tempDir.resolve("valencia.txt.tmp"), "T | 0 | half writ");
+
+        TaskList loaded = new Storage(tempDir.resolve("valencia.txt").toString(), 100).load();
+
+        assertEquals(2, loaded.size());
+        assertFalse(Files.exists(tempDir.resolve("valencia.txt.new")));
+        assertFalse(Files.exists(tempDir.resolve("valencia.txt.tmp")));
+        assertFalse(Files.exists(tempDir.resolve("valencia.txt.journal")));
+    }
+
+    @Test
+    public void everyCommitDurability_recordsEachSave() {
+        Storage storage = new Storage(tempDir.resolve("valencia.txt").toString(), 100);
+        storage.setDurability(Durability.EVERY_COMMIT);
+        TaskList list = storage.load();
+
+        list.add(new Todo("A"));
+        storage.insert(list.get(0), list);
+        storage.save(list);
+
+        SaveStats stats = storage.getSaveStats();
+        assertEquals(2, stats.getCommits());
+        assertEquals(0, stats.getFailures());
+        assertTrue(stats.isLastOk());
+        assertEquals(1, new Storage(tempDir.resolve("valencia.txt").toString(), 100).load().size());
+    }
+
+    @Test
+    public void periodicDurability_syncsOnATimerAfterTheLastCommit() throws Exception {
+        Storage storage = new Storage(tempDir.resolve("valencia.txt").toString(), 100);
+        storage.setDurability(Durability.PERIODIC);
+        storage.setFsyncIntervalMillis(1000);
+        storage.enableWriteBehind(0);
+        TaskList list = storage.load();
+
+        for (int i = 0; i < 2; i++) {
+            list.add(new Todo("task " + i));
+            storage.insert(list.get(i), list);
+            storage.flush();
+        }
+        assertTrue(storage.hasUnsyncedWrites());
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (storage.hasUnsyncedWrites() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(storage.hasUnsyncedWrites());
+        storage.close();
+    }
+
+    @Test
+    public void load_quarantinesRecordsWithBadChecksum() throws Exception {
+        Path path = tempDir.resolve("valencia.txt");
+        TaskList list = new TaskList();
+        list.add(new Todo("keep me"));
+        list.add(new Todo("flip me"));
+        new Storage(path.toString()).save(list);
+
+        String damaged = Files.readString(path).replace("flip me", "flop me");
+        Files.writeString(path, damaged + "T | 0 | torn line without checksum" + System.lineSeparator());
+
+        Storage storage = new Storage(path.toString());
+        TaskList loaded = storage.load();
+
+        assertEquals(1, loaded.size());
+        assertEquals("keep me", loaded.get(0).getDescription());
+        assertEquals(2, storage.getCorruptRecordCount());
+        assertTrue(storage.pollError().isPresent());
+        String quarantined = Files.readString(tempDir.resolve("valencia.txt.corrupt"));
+        assertTrue(quarantined.contains("flop me") && quarantined.contains("torn line without checksum"));
+
+        Storage reloaded = new Storage(path.toString());
+        assertEquals(1, reloaded.load().size());
+        assertEquals(0, reloaded.getCorruptRecordCount());
+        assertEquals(quarantined, Files.readString(tempDir.resolve("valencia.txt.corrupt")));
+    }
+
+    @Test
+    public void load_acceptsRecordsWithoutChecksumOnlyInLegacyFiles() throws Exception {
+        Path path = tempDir.resolve("valencia.txt");
+        Files.writeString(path, "T | 0 | legacy task" + System.lineSeparator()
+                + "D | 1 | legacy deadline | 2026-02-01" + System.lineSeparator());
+        Files.writeString(tempDir.resolve("valencia.txt.journal"), "+ | #3 | T | 0 | buy groceries "
+                + System.lineSeparator() + "M | #1" + System.lineSeparator());
+
+        Storage storage = new Storage(path.toString(), 100);
+        TaskList loaded = storage.load();
+
+        assertEquals(2, loaded.size());
+        assertEquals("legacy task", loaded.get(0).getDescription());
+        assertFalse(loaded.get(0).isDone());
+        assertEquals(2, storage.getCorruptRecordCount());
+    }
+
+    @Test
+    public void binaryLoad_skipsRecordWithBadChecksumAndKeepsTheRest() throws Exception {
+        Path path = tempDir.resolve("valencia.txt");
+        TaskList list = new TaskList();
+        list.add(new Todo("first"));
+        list.add(new Todo("second"));
+        list.add(new Todo("third"));
+        Storage storage = new Storage(path.toString());
+        storage.setSnapshotFormat(SnapshotFormat.BINARY);
+        storage.save(list);
+
+        byte[] bytes = Files.readAllBytes(path);
+        String raw = new String(bytes, StandardCharsets.ISO_8859_1);
+        bytes[raw.indexOf("second")] = 'S';
+        Files.write(path, bytes);
+
+        Storage reloaded = new Storage(path.toString());
+        TaskList loaded = reloaded.load();
+        assertEquals(2, loaded.size());
+        assertEquals("third", loaded.get(1).getDescription());
+        assertEquals(1, reloaded.getCorruptRecordCount());
+    }
+
+    @Test
+    public void beginUpdate_appliesOtherProcessesJournalRecords() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Storage cli = new Storage(file, 100);
+        Storage gui = new Storage(file, 100);
+        TaskList cliList = cli.load();
+        TaskList guiList = gui.load();
+
+        cli.beginUpdate(cliList);
+        cliList.add(new Todo("from cli"));
+        cli.insert(cliList.get(0), cliList);
+        cli.endUpdate();
+
+        gui.beginUpdate(guiList);
+        assertEquals(1, guiList.size());
+        guiList.add(new Todo("from gui"));
+        gui.insert(guiList.get(1), guiList);
+        guiList.markDone(0);
+        gui.updateDone(guiList.get(0), guiList);
+        gui.endUpdate();
+
+        cli.beginUpdate(cliList);
+        cli.endUpdate();
+        assertEquals(guiList.formatList(), cliList.formatList());
+        assertEquals(guiList.formatList(), new Storage(file, 100).load().formatList());
+    }
+
+    @Test
+    public void beginUpdate_rereadsSnapshotReplacedByAnotherProcess() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Storage first = new Storage(file, 2);
+        Storage second = new Storage(file, 2);
+        TaskList firstList = first.load();
+        TaskList secondList = second.load();
+
+        first.beginUpdate(firstList);
+        for (int i = 0; i < 3; i++) {
+            firstList.add(new Todo("task " + i));
+            first.insert(firstList.get(i), firstList);
+        }
+        first.endUpdate();
+        assertTrue(Files.exists(tempDir.resolve("valencia.txt")));
+
+        second.beginUpdate(secondList);
+        second.endUpdate();
+        assertEquals(firstList.formatList(), secondList.formatList());
+    }
+
+    @Test
+    public void beginUpdate_reportsOnlyChangesMadeElsewhere() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Storage mine = new Storage(file, 100);
+        Storage other = new Storage(file, 100);
+        TaskList myList = mine.load();
+        TaskList otherList = other.load();
+
+        mine.beginUpdate(myList);
+        myList.add(new Todo("A"));
+        mine.insert(myList.get(0), myList);
+        myList.add(new Todo("B"));
+        mine.insert(myList.get(1), myList);
+        mine.endUpdate();
+        assertTrue(mine.beginUpdate(myList).isEmpty());
+        mine.endUpdate();
+
+        other.beginUpdate(otherList);
+        otherList.markDone(1);
+        other.updateDone(otherList.get(1), otherList);
+        other.delete(otherList.remove(0), otherList);
+        other.endUpdate();
+
+        List<TaskChange> changes = mine.beginUpdate(myList);
+        mine.endUpdate();
+        assertEquals(2, changes.size());
+        assertEquals("updated #2 [T] [X] B", changes.get(0).toString());
+        assertEquals("removed #1 [T] [ ] A", changes.get(1).toString());
+    }
+
+    @Test
+    public void beginUpdate_diffsSnapshotReplacedElsewhere() {
+        String file = tempDir.resolve("valencia.txt").toString();
+        TaskList list = new TaskList();
+        list.add(new Todo("A"));
+        list.add(new Todo("B"));
+        list.add(new Todo("C"));
+        new Storage(file).save(list);
+        Storage mine = new Storage(file);
+        TaskList myList = mine.load();
+
+        list.remove(1);
+        list.markDone(0);
+        new Storage(file).save(list);
+
+        List<TaskChange> changes = mine.beginUpdate(myList);
+        mine.endUpdate();
+        assertEquals(list.formatList(), myList.formatList());
+        assertEquals(2, changes.size());
+        assertEquals("removed #2 [T] [ ] B", changes.get(0).toString());
+        assertEquals("updated #1 [T] [X] A", changes.get(1).toString());
+    }
+
+    @Test
+    public void taskIds_surviveReloadAndOldIndexRecordsStillReplay() throws IOException {
+        String file = tempDir.resolve("valencia.txt").toString();
+        Storage storage = new Storage(file, 100);
+        TaskList list = storage.load();
+        for (int i = 0; i < 3; i++) {
+            list.add(new Todo("task " + i));
+            storage.insert(list.get(i), list);
+        }
+        storage.delete(list.removeById(1), list);
+        String oldRecord = new TaskCodec().appendChecksum(new StringBuilder("M | 1"), 0).toString();
+        Files.writeString(tempDir.resolve("valencia.txt.journal"), oldRecord + System.lineSeparator(),
+                StandardOpenOption.APPEND);
+
+        TaskList loaded = new Storage(file, 100).load();
+        assertEquals(2, loaded.size());
+        assertEquals(2, loaded.get(0).getId());
+        assertEquals(3, loaded.get(1).getId());
+        assertTrue(loaded.getById(3).isDone());
+    }
+}
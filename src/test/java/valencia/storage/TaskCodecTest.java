@@ -0,0 +1,70 @@
+package valencia.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import valencia.task.Deadline;
+import valencia.task.Event;
+import valencia.task.Task;
+
+public class TaskCodecTest {
+    private final TaskCodec codec = new TaskCodec();
+
+    private String roundTrip(String line) {
+        Task t = codec.decode(line);
+        return codec.encode(t, new StringBuilder()).toString();
+    }
+
+    @Test
+    public void decodeThenEncode_roundTripsByteForByte() {
+        assertEquals("T | 1 | read book", roundTrip("T | 1 | read book"));
+        assertEquals("D | 0 | return book | 2026-02-01", roundTrip("D | 0 | return book | 2026-02-01"));
+        assertEquals("E | 0 | meeting | 2026-02-03 1400 | 1600", roundTrip("E | 0 | meeting | 2026-02-03 1400 | 1600"));
+    }
+
+    @Test
+    public void decode_ignoresWhitespaceAroundSeparatorsLikeSplit() {
+        Task t = codec.decode("E|1|  project meeting\t|Mon 2pm |  4pm");
+        assertTrue(t instanceof Event);
+        assertTrue(t.isDone());
+        assertEquals("project meeting", t.getDescription());
+        assertEquals("Mon 2pm", ((Event) t).getFrom());
+        assertEquals("4pm", ((Event) t).getTo());
+    }
+
+    @Test
+    public void decode_parsesDatesWithoutThrowing() {
+        Task t = codec.decode("D | 0 | leap day | 2024-02-29");
+        assertEquals(LocalDate.of(2024, 2, 29), ((Deadline) t).getBy());
+
+        assertNull(codec.decode("D | 0 | not leap | 2023-02-29"));
+        assertNull(codec.decode("D | 0 | bad month | 2023-13-01"));
+        assertNull(codec.decode("D | 0 | not a date | tomorrow"));
+    }
+
+    @Test
+    public void decode_invalidLines_returnNull() {
+        assertNull(codec.decode("T | 1"));
+        assertNull(codec.decode("X | 0 | unknown type"));
+        assertNull(codec.decode("TT | 0 | long type"));
+        assertNull(codec.decode("D | 0 | missing date"));
+        assertNull(codec.decode("E | 0 | missing end | 2pm"));
+        assertNull(codec.decode("T | 0 |   | trailing"));
+    }
+
+    @Test
+    public void encodeLine_addsChecksumThatDecodeVerifies() {
+        Task original = codec.decode("D | 1 | return book | 2026-02-01");
+        String line = codec.encodeLine(original, new StringBuilder()).toString();
+        assertTrue(line.startsWith("D | 1 | return book | 2026-02-01 | ~"));
+
+        Task t = codec.decode(line);
+        assertEquals("return book", t.getDescription());
+        assertNull(codec.decode(line.replace("2026-02-01", "2026-02-02")));
+    }
+}
@@ -0,0 +1,41 @@
+package valencia.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+public class EventTest {
+
+    @Test
+    public void constructor_parsesStartAndEndOnce() {
+        Event e = new Event("talk", "2026-02-03 1400", "1600");
+
+        assertEquals(Optional.of(LocalDateTime.of(2026, 2, 3, 14, 0)), e.getStart());
+        assertEquals(Optional.of(LocalDateTime.of(2026, 2, 3, 16, 0)), e.getEnd());
+        assertEquals(e.getStart(), e.getReminderDateTime());
+        assertEquals("[E] [ ] talk (from: 2026-02-03 1400 to: 1600)", e.toString());
+    }
+
+    @Test
+    public void constructor_dateOnlyEnd_meansEndOfDay() {
+        Event e = new Event("camp", "2026-02-03", "2026-02-05");
+
+        assertEquals(Optional.of(LocalDateTime.of(2026, 2, 3, 0, 0)), e.getStart());
+        assertEquals(Optional.of(LocalDateTime.of(2026, 2, 5, 0, 0).with(LocalTime.MAX)), e.getEnd());
+    }
+
+    @Test
+    public void constructor_freeTextTimes_areKeptButNotParsed() {
+        Event e = new Event("party", "Mon 2pm", "4pm");
+
+        assertFalse(e.getStart().isPresent());
+        assertFalse(e.getEnd().isPresent());
+        assertFalse(e.getReminderDateTime().isPresent());
+        assertEquals("Mon 2pm", e.getFrom());
+    }
+}
@@ -0,0 +1,46 @@
+package valencia.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class HistoryTest {
+
+    @Test
+    public void undo_returnsInverseEditsInReverseOrder_andRedoReplaysStep() {
+        History history = new History(10);
+        Task a = new Todo("A");
+        a.setId(1);
+        history.record(List.of(new Edit(Edit.Kind.ADD, a), new Edit(Edit.Kind.MARK, a)));
+
+        List<Edit> undo = history.undo().get();
+        assertEquals(Edit.Kind.UNMARK, undo.get(0).getKind());
+        assertEquals(Edit.Kind.REMOVE, undo.get(1).getKind());
+        assertFalse(history.undo().isPresent());
+
+        List<Edit> redo = history.redo().get();
+        assertEquals(Edit.Kind.ADD, redo.get(0).getKind());
+        assertEquals(Edit.Kind.MARK, redo.get(1).getKind());
+        assertFalse(history.redo().isPresent());
+    }
+
+    @Test
+    public void record_dropsOldestStepsAndClearsRedo() {
+        History history = new History(2);
+        for (int i = 1; i <= 3; i++) {
+            Task t = new Todo("task " + i);
+            t.setId(i);
+            history.record(List.of(new Edit(Edit.Kind.ADD, t)));
+        }
+        history.undo();
+        history.record(List.of(new Edit(Edit.Kind.REMOVE, new Todo("x"))));
+
+        assertFalse(history.redo().isPresent());
+        history.undo();
+        assertEquals("removed #2 [T] [ ] task 2", history.undo().get().get(0).toString());
+        assertFalse(history.undo().isPresent());
+    }
+}
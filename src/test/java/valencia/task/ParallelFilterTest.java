@@ -0,0 +1,33 @@
+package valencia.task;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class ParallelFilterTest {
+    @Test
+    public void filter_largeRange_returnsSamePositionsInOrderAsLoop() {
+        int size = ParallelFilter.SEQUENTIAL_THRESHOLD * 5 + 3;
+        int[] expected = IntStream.range(0, size).filter(i -> i % 7 == 3).toArray();
+        assertArrayEquals(expected, ParallelFilter.filter(size, i -> i % 7 == 3));
+        assertArrayEquals(new int[0], ParallelFilter.filter(0, i -> true));
+    }
+
+    @Test
+    public void find_largeListFallbackScan_keepsListOrder() {
+        TaskList list = new TaskList();
+        for (int i = 0; i < ParallelFilter.SEQUENTIAL_THRESHOLD * 2; i++) {
+            list.add(new Todo("task " + i + (i % 3 == 0 ? " a-b" : "")));
+        }
+        List<Task> expected = list.getTasks().stream()
+                .filter(t -> t.getDescription().contains(" a-"))
+                .collect(Collectors.toList());
+        assertEquals(expected, list.findByKeyword(" a-"));
+        assertEquals(list.getTasks().subList(1000, 1010), list.findByKeyword("task 100").subList(1, 11));
+    }
+}
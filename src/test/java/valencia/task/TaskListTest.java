@@ -2,11 +2,22 @@ package valencia.task;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
 import org.junit.jupiter.api.Test;
 
 public class TaskListTest {
+    private static final DateTimeFormatter EVENT_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
 
     @Test
     public void add_increasesSize() {
@@ -15,6 +26,79 @@ public class TaskListTest {
         assertEquals(1, list.size());
     }
 
+    @Test
+    public void writeList_acrossChunks_writesSameLinesAsFormatList() throws Exception {
+        TaskList list = new TaskList();
+        for (int i = 0; i < TaskList.WRITE_CHUNK_SIZE * 2 + 5; i++) {
+            list.add(new Todo("task " + i));
+        }
+        list.removeById(TaskList.WRITE_CHUNK_SIZE);
+
+        StringBuilder out = new StringBuilder();
+        assertEquals(list.size(), list.writeList(out));
+        assertEquals(list.formatList() + "\n", out.toString());
+
+        StringBuilder empty = new StringBuilder();
+        assertEquals(0, new TaskList().writeList(empty));
+        assertEquals("(no tasks yet)\n", empty.toString());
+    }
+
+    @Test
+    public void findByKeyword_indexBuiltInBackgroundStaysCurrent() {
+        TaskList list = new TaskList();
+        list.add(new Todo("read book"));
+        list.add(new Todo("return book"));
+        for (int i = 0; i < TaskList.INDEX_CHUNK_SIZE; i++) {
+            list.add(new Todo("filler " + i));
+        }
+        assertEquals(2, list.findByKeyword("book").size());
+        list.awaitTextIndex();
+
+        list.add(new Todo("book flight"));
+        Task removed = list.removeById(1);
+        assertEquals("[[T] [ ] return book, [T] [ ] book flight]", list.findByKeyword("book").toString());
+        list.add(removed);
+        assertEquals("[[T] [ ] read book, [T] [ ] return book, [T] [ ] book flight]",
+                list.findByKeyword("book").toString());
+        assertEquals(1, list.findByKeyword("fl").size());
+
+        list.setAll(List.of(new Todo("cook dinner")));
+        assertEquals(0, list.findByKeyword("book").size());
+        list.awaitTextIndex();
+        assertEquals(0, list.findByKeyword("book").size());
+        assertEquals(1, list.findByKeyword("dinner").size());
+    }
+
+    @Test
+    public void formatPage_numbersByPositionInWholeList() {
+        TaskList list = new TaskList();
+        for (int i = 1; i <= 7; i++) {
+            list.add(new Todo("task " + i));
+        }
+        list.removeById(2);
+
+        assertEquals("4. #5 [T] [ ] task 5\n5. #6 [T] [ ] task 6\n6. #7 [T] [ ] task 7", list.formatPage(2, 3));
+        assertEquals("(no tasks on this page)", list.formatPage(3, 3));
+    }
+
+    @Test
+    public void get_followsAddsAndRemovesBetweenPositionalReads() {
+        TaskList list = new TaskList();
+        for (String name : List.of("A", "B", "C", "D")) {
+            list.add(new Todo(name));
+        }
+        assertEquals("B", list.get(1).getDescription());
+
+        Task removed = list.remove(1);
+        assertEquals("C", list.get(1).getDescription());
+        list.add(removed);
+        assertEquals("B", list.get(1).getDescription());
+        assertEquals(List.of(list.get(0), list.get(3)), list.getAt(List.of(0, 3)));
+
+        list.setAll(List.of());
+        assertEquals("(no tasks on this page)", list.formatPage(1, 3));
+    }
+
     @Test
     public void remove_removesCorrectTask_andDecreasesSize() {
         TaskList list = new TaskList();
@@ -49,5 +133,185 @@ public class TaskListTest {
 
         assertFalse(list.get(0).isDone());
     }
-}
 
+    @Test
+    public void ids_areStableAcrossRemovals() {
+        TaskList list = new TaskList();
+        list.add(new Todo("A"));
+        list.add(new Todo("B"));
+        list.add(new Todo("C"));
+
+        Task removed = list.removeById(1);
+        assertEquals("A", removed.getDescription());
+        assertEquals(3, list.getById(3).getId());
+        assertEquals("C", list.getById(3).getDescription());
+        assertNull(list.getById(1));
+
+        list.add(new Todo("D"));
+        assertEquals(4, list.get(2).getId());
+    }
+
+    @Test
+    public void add_taskWithTakenId_getsNewId() {
+        TaskList list = new TaskList();
+        Task first = new Todo("A");
+        first.setId(5);
+        list.add(first);
+        Task clash = new Todo("B");
+        clash.setId(5);
+        list.add(clash);
+
+        assertEquals(6, clash.getId());
+        assertEquals(first, list.getById(5));
+    }
+
+    @Test
+    public void findByKeyword_matchesSubstringsInListOrder() {
+        TaskList list = new TaskList();
+        list.add(new Todo("Read BOOK"));
+        list.add(new Todo("buy notebook"));
+        list.add(new Todo("return books to library"));
+        list.add(new Todo("buy milk"));
+
+        assertEquals(List.of("Read BOOK", "buy notebook", "return books to library"), descriptions(list, "book"));
+        assertEquals(List.of("buy notebook", "buy milk"), descriptions(list, "buy"));
+        assertEquals(List.of("buy milk"), descriptions(list, "y m"));
+        assertTrue(list.findByKeyword("xyz").isEmpty());
+        assertEquals(List.of("buy notebook", "buy milk"), descriptions(list, "bu"));
+        assertEquals(List.of("Read BOOK"), descriptions(list, "d b"));
+    }
+
+    @Test
+    public void findByKeyword_sameResultsAsFullScan() {
+        TaskList list = new TaskList();
+        String[] words = {"alpha", "beta", "gamma", "delta", "alphabet", "e-mail", "Ärger"};
+        for (int i = 0; i < 200; i++) {
+            list.add(new Todo(words[i % words.length] + " " + words[(i * 3) % words.length] + " #" + i));
+        }
+        list.removeById(5);
+        list.findByKeyword("alpha");
+        list.awaitTextIndex();
+        list.removeById(77);
+
+        String[] keys = {"a", "al", "ph", "rG", "alp", "PHA B", "ta d", "-ma", "ärg", " #1", "7", "zzz"};
+        for (String key : keys) {
+            String lower = key.toLowerCase();
+            List<Task> expected = list.getTasks().stream()
+                    .filter(t -> t.getDescription().toLowerCase().contains(lower))
+                    .collect(Collectors.toList());
+            assertEquals(expected, list.findByKeyword(key));
+        }
+    }
+
+    @Test
+    public void findByKeyword_followsAddsAndRemoves() {
+        TaskList list = new TaskList();
+        list.add(new Todo("buy milk"));
+        list.add(new Todo("drink milk"));
+        list.removeById(1);
+        list.add(new Todo("milkshake"));
+
+        assertEquals(List.of("drink milk", "milkshake"), descriptions(list, "milk"));
+        list.setAll(List.of(new Todo("no dairy")));
+        assertTrue(list.findByKeyword("milk").isEmpty());
+    }
+
+    @Test
+    public void findUpcoming_returnsRangeInTimeOrder() {
+        TaskList list = new TaskList();
+        list.add(new Deadline("later", LocalDate.of(2026, 3, 5)));
+        list.add(new Event("talk", "2026-03-02 1400", "1500"));
+        list.add(new Todo("no time"));
+        list.add(new Deadline("first", LocalDate.of(2026, 3, 1)));
+        list.add(new Deadline("also first", LocalDate.of(2026, 3, 1)));
+        list.add(new Deadline("too late", LocalDate.of(2026, 4, 1)));
+        list.removeById(1);
+
+        LocalDateTime from = LocalDateTime.of(2026, 3, 1, 0, 0);
+        List<String> upcoming = list.findUpcoming(from, from.plusDays(5)).stream()
+                .map(Task::getDescription).collect(Collectors.toList());
+        assertEquals(List.of("first", "also first", "talk"), upcoming);
+    }
+
+    @Test
+    public void findConflicts_andFreeSlots_useEventTimes() {
+        TaskList list = new TaskList();
+        list.add(new Event("standup", "2026-03-02 0900", "0930"));
+        list.add(new Event("review", "2026-03-02 0920", "1000"));
+        list.add(new Event("lunch", "2026-03-02 1200", "1300"));
+        list.add(new Event("party", "Mon 2pm", "4pm"));
+
+        Event next = new Event("call", "2026-03-02 1000", "1200");
+        assertTrue(list.findConflicts(next).isEmpty());
+        Event clash = new Event("sync", "2026-03-02 1230", "1400");
+        assertEquals(List.of(list.getById(3)), list.findConflicts(clash));
+
+        assertEquals("1. #1 [E] [ ] standup (from: 2026-03-02 0900 to: 0930)\n"
+                + "   overlaps #2 [E] [ ] review (from: 2026-03-02 0920 to: 1000)", list.formatConflicts(5));
+        assertEquals("00:00 - 09:00\n10:00 - 12:00\n13:00 - 24:00", list.formatFreeSlots(LocalDate.of(2026, 3, 2)));
+        list.add(new Event("holiday", "2026-03-03", "2026-03-03"));
+        assertEquals("(no free time)", list.formatFreeSlots(LocalDate.of(2026, 3, 3)));
+
+        list.add(new Event("coffee", "2026-03-02 0910", "0915"));
+        assertEquals("1. #1 [E] [ ] standup (from: 2026-03-02 0900 to: 0930)\n"
+                + "   overlaps #6 [E] [ ] coffee (from: 2026-03-02 0910 to: 0915)\n"
+                + "...and 1 more overlapping pair not shown.", list.formatConflicts(1));
+    }
+
+    @Test
+    public void findOverlapping_matchesBruteForceAfterRemovals() {
+        TaskList list = new TaskList();
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(10_000));
+            LocalDateTime end = start.plusMinutes(random.nextInt(600));
+            list.add(new Event("e" + i, start.format(EVENT_TIME), end.format(EVENT_TIME)));
+        }
+        for (int id = 1; id <= 300; id += 3) {
+            list.removeById(id);
+        }
+
+        for (int q = 0; q < 50; q++) {
+            LocalDateTime from = base.plusMinutes(random.nextInt(10_000));
+            LocalDateTime to = from.plusMinutes(random.nextInt(300));
+            List<Task> expected = list.getTasks().stream()
+                    .map(t -> (Event) t)
+                    .filter(e -> e.getStart().get().isBefore(to) && e.getEnd().get().isAfter(from))
+                    .sorted(Comparator.comparing((Event e) -> e.getStart().get()).thenComparing(Task::getId))
+                    .collect(Collectors.toList());
+            assertEquals(expected, list.findOverlapping(from, to));
+        }
+    }
+
+    @Test
+    public void reads_seeWholeChangesWhileAnotherThreadWrites() throws InterruptedException {
+        TaskList list = new TaskList();
+        Thread writer = new Thread(() -> {
+            for (int round = 0; round < 300; round++) {
+                List<Task> batch = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    batch.add(new Todo("round " + round));
+                }
+                list.setAll(batch);
+            }
+        });
+        writer.start();
+
+        while (writer.isAlive()) {
+            List<Task> snapshot = list.getTasks();
+            assertTrue(snapshot.isEmpty() || snapshot.size() == 20, "torn read of " + snapshot.size() + " tasks");
+            String[] lines = list.formatList().split("\n");
+            String round = lines[lines.length - 1].replaceAll(".*(round \\d+)$", "$1");
+            for (String line : lines) {
+                assertTrue(line.equals("(no tasks yet)") || line.endsWith(round), "torn read: " + line);
+            }
+        }
+        writer.join();
+        assertEquals(20, list.size());
+    }
+
+    private static List<String> descriptions(TaskList list, String keyword) {
+        return list.findByKeyword(keyword).stream().map(Task::getDescription).collect(Collectors.toList());
+    }
+}
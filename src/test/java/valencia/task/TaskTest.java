@@ -0,0 +1,32 @@
+package valencia.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+public class TaskTest {
+    @Test
+    public void toString_isReusedUntilDoneStateChanges() {
+        Task deadline = new Deadline("return book", LocalDate.of(2026, 2, 1));
+        String notDone = deadline.toString();
+        assertEquals("[D] [ ] return book (by: Feb 01 2026)", notDone);
+        assertSame(notDone, deadline.toString());
+
+        deadline.markDone();
+        assertEquals("[D] [X] return book (by: Feb 01 2026)", deadline.toString());
+        assertSame(deadline.toString(), deadline.toString());
+        deadline.unmarkDone();
+        assertEquals(notDone, deadline.toString());
+    }
+
+    @Test
+    public void toString_allTypes() {
+        assertEquals("[ ] plain", new Task("plain").toString());
+        assertEquals("[T] [ ] read", new Todo("read").toString());
+        assertEquals("[E] [ ] talk (from: 2026-02-03 1400 to: 1600)",
+                new Event("talk", "2026-02-03 1400", "1600").toString());
+    }
+}